@@ -0,0 +1,64 @@
+package snakegameeval;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One arena tick with randomly turning snakes; dead snakes respawn so the
+ * snake count stays constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param({"16", "64", "256", "1024"})
+    public int snakes;
+
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    private ArenaEngine arena;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        arena = new ArenaEngine(1024, 1024, snakes, snakes, new SplittableRandom(42),
+                parallel ? ForkJoinPool.commonPool() : null);
+        for(int i = 0; i < snakes; i++) {
+            arena.addSnake();
+        }
+        random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public int tick() {
+        for(int id = 0; id < snakes; id++) {
+            if(!arena.isAlive(id)) {
+                arena.respawn(id);
+            } else if(random.nextInt(5) == 0) {
+                arena.steer(id, DIRECTIONS[random.nextInt(4)]);
+            }
+        }
+        arena.step();
+        arena.clearChanges();
+        return arena.getTick();
+    }
+}
@@ -0,0 +1,60 @@
+package snakegameeval;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost per game of one batched step with random actions, reported per
+ * environment so it can be compared with stepping SnakeEngine directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchedEnvBenchmark {
+    private static final int ENVS = 4096;
+    private static final int ACTION_SETS = 64;
+
+    @Param({"16", "64"})
+    public int size;
+
+    private BatchedSnakeEnv env;
+    private int[][] actions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        env = new BatchedSnakeEnv(ENVS, size, size, 42);
+        SplittableRandom random = new SplittableRandom(7);
+        actions = new int[ACTION_SETS][ENVS];
+        for(int[] set : actions) {
+            for(int i = 0; i < ENVS; i++) {
+                // Mostly keep going, so games last long enough to grow.
+                set[i] = random.nextInt(8) == 0 ? random.nextInt(4) : -1;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVS)
+    public float[] step() {
+        env.step(actions[next]);
+        next = (next + 1) & (ACTION_SETS - 1);
+        return env.getObservations();
+    }
+}
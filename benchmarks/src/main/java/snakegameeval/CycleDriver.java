@@ -0,0 +1,73 @@
+package snakegameeval;
+
+/**
+ * Steers a snake around a fixed Hamiltonian cycle over the largest even-sized
+ * sub-grid of the board, so benchmark games never end and keep a stable length.
+ */
+public class CycleDriver {
+    private final SnakeEngine engine;
+    private final HamiltonianCycle cycle;
+
+    public CycleDriver(SnakeEngine engine) {
+        this.engine = engine;
+        this.cycle = new HamiltonianCycle(engine.getColumnCount(), engine.getRowCount());
+    }
+
+    public int cycleLength() {
+        return cycle.length();
+    }
+
+    public static int cycleLength(int columnCount, int rowCount) {
+        return HamiltonianCycle.length(columnCount, rowCount);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the snake cannot reach this length on
+     *                                  the board, so a result is never reported
+     *                                  under a length it did not run at
+     */
+    public static int requireFits(int columnCount, int rowCount, int length) {
+        int max = cycleLength(columnCount, rowCount) / 2;
+        if(length > max) {
+            throw new IllegalArgumentException("A " + columnCount + "x" + rowCount + " board holds a snake of at most "
+                    + max + " cells, not " + length);
+        }
+        return length;
+    }
+
+    public void steer() {
+        // Directions take effect one tick after they are queued, so aim for the cell after the next one.
+        int x = engine.getHeadX();
+        int y = engine.getHeadY();
+        Direction current = engine.getDirection();
+        switch(current) {
+            case North:
+                y--;
+                break;
+            case South:
+                y++;
+                break;
+            case West:
+                x--;
+                break;
+            case East:
+                x++;
+                break;
+        }
+        Direction next = cycle.get(x, y);
+        if(next != null && next != current) {
+            engine.addDirection(next);
+        }
+    }
+
+    public void grow(int length) {
+        int target = requireFits(engine.getColumnCount(), engine.getRowCount(), length);
+        while(engine.getLength() < target && !engine.isGameOver()) {
+            steer();
+            engine.step();
+        }
+        if(engine.getLength() < target) {
+            throw new IllegalStateException("Snake died at length " + engine.getLength() + " growing to " + target);
+        }
+    }
+}
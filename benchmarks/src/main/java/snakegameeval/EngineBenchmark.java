@@ -0,0 +1,55 @@
+package snakegameeval;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    // Board size and snake length as size:length, listing only the lengths each board can hold.
+    @Param({"27:5", "27:250", "128:5", "128:250", "128:4000", "512:5", "512:250", "512:4000",
+            "1024:5", "1024:250", "1024:4000"})
+    public String board;
+
+    private SnakeEngine engine;
+    private CycleDriver driver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int separator = board.indexOf(':');
+        int boardSize = Integer.parseInt(board.substring(0, separator));
+        int snakeLength = CycleDriver.requireFits(boardSize, boardSize, Integer.parseInt(board.substring(separator + 1)));
+        engine = new SnakeEngine(boardSize, boardSize, snakeLength, new Random(42));
+        engine.reset();
+        driver = new CycleDriver(engine);
+        driver.grow(snakeLength);
+    }
+
+    @Benchmark
+    public TileType updateSnake() {
+        driver.steer();
+        return engine.step();
+    }
+
+    @Benchmark
+    public int spawnFruit() {
+        engine.spawnFruit();
+        return engine.getNextFruitScore();
+    }
+}
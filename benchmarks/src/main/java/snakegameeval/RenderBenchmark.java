@@ -0,0 +1,70 @@
+package snakegameeval;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    @Param({"27", "64", "128"})
+    public int boardSize;
+
+    @Param({"5", "250"})
+    public int snakeLength;
+
+    private SnakeEngine engine;
+    private CycleDriver driver;
+    private BoardPanel board;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new SnakeEngine(boardSize, boardSize,
+                CycleDriver.requireFits(boardSize, boardSize, snakeLength), new Random(42));
+        engine.reset();
+        driver = new CycleDriver(engine);
+        driver.grow(snakeLength);
+        board = new BoardPanel(engine);
+        // Sized as the game sizes its window: the whole board, up to 800 pixels, then a scrolling camera.
+        int side = Math.min(boardSize * BoardPanel.TILE_SIZE, 800);
+        Dimension size = new Dimension(side, side);
+        board.setSize(size);
+        image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintBoard() {
+        driver.steer();
+        engine.step();
+        board.flushChanges();
+        board.paintComponent(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,69 @@
+package snakegameeval;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ViewportBenchmark {
+    private static final int VIEW_SIZE = 800;
+
+    @Param({"128", "1024", "4096"})
+    public int boardSize;
+
+    @Param({"1.0", "0.25"})
+    public float zoom;
+
+    private SnakeEngine engine;
+    private CycleDriver driver;
+    private BoardRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new SnakeEngine(boardSize, boardSize, CycleDriver.requireFits(boardSize, boardSize, 250), new Random(42));
+        engine.reset();
+        driver = new CycleDriver(engine);
+        driver.grow(250);
+        renderer = new BoardRenderer(engine, 20, Color.green);
+        renderer.zoomBy(zoom);
+        image = new BufferedImage(VIEW_SIZE, VIEW_SIZE, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintViewport() {
+        driver.steer();
+        engine.step();
+        renderer.flushChanges();
+        engine.clearDirty();
+        renderer.paintBoard(graphics, VIEW_SIZE, VIEW_SIZE, null);
+        return image;
+    }
+}
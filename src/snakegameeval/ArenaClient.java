@@ -0,0 +1,239 @@
+package snakegameeval;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Blocking client for ArenaServer. Keeps a local copy of the occupancy grid
+ * built from keyframes and deltas; a keyframe for the tick the copy is
+ * already at is also checked against it, so a lost or misapplied delta shows
+ * up as a desync. Keyframes for a later tick are resyncs after the server
+ * dropped this client's backlog.
+ */
+public class ArenaClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private final ByteBuffer command = ByteBuffer.allocate(1);
+    private ByteBuffer in = ByteBuffer.allocate(8192);
+    private int snakeId = -1;
+    private int columnCount;
+    private int rowCount;
+    private int[] cells;
+    private int[] scores = new int[0];
+    private boolean[] alive = new boolean[0];
+    private int tick;
+    private boolean synced;
+    private long bytesReceived;
+    private long keyframes;
+    private long deltas;
+    private long desyncs;
+
+    public ArenaClient(String host, int port) throws IOException {
+        this(host, port, 0);
+    }
+
+    /**
+     * @param receiveBufferSize socket receive buffer in bytes, or 0 for the
+     *                          default; a small one simulates a slow link
+     */
+    public ArenaClient(String host, int port, int receiveBufferSize) throws IOException {
+        this.channel = SocketChannel.open();
+        if(receiveBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        }
+        channel.connect(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        in.flip();
+        while(snakeId < 0) {
+            receive();
+        }
+    }
+
+    /**
+     * Blocks until the next message has been applied.
+     *
+     * @return the message type
+     */
+    public int receive() throws IOException {
+        while(true) {
+            int start = in.position();
+            try {
+                int length = (int) Varint.read(in);
+                if(in.remaining() >= length) {
+                    int end = in.position() + length;
+                    int type = in.get();
+                    apply(type);
+                    in.position(end);
+                    return type;
+                }
+            } catch(BufferUnderflowException e) {
+            }
+            in.position(start);
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        in.compact();
+        if(!in.hasRemaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            grown.put(in);
+            in = grown;
+        }
+        int read = channel.read(in);
+        in.flip();
+        if(read < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        bytesReceived += read;
+    }
+
+    private void apply(int type) {
+        switch(type) {
+            case ArenaProtocol.WELCOME:
+                this.snakeId = (int) Varint.read(in);
+                this.columnCount = (int) Varint.read(in);
+                this.rowCount = (int) Varint.read(in);
+                this.cells = new int[columnCount * rowCount];
+                break;
+            case ArenaProtocol.KEYFRAME:
+                applyKeyframe();
+                keyframes++;
+                break;
+            case ArenaProtocol.DELTA:
+                this.tick = (int) Varint.read(in);
+                int count = (int) Varint.read(in);
+                int cell = 0;
+                for(int i = 0; i < count; i++) {
+                    cell += (int) Varint.read(in);
+                    cells[cell] = ArenaProtocol.unzigzag((int) Varint.read(in));
+                }
+                applySnakes();
+                deltas++;
+                break;
+        }
+    }
+
+    private void applyKeyframe() {
+        int keyframeTick = (int) Varint.read(in);
+        boolean check = synced && keyframeTick == tick;
+        this.tick = keyframeTick;
+        int count = (int) Varint.read(in);
+        boolean matches = true;
+        int cell = 0;
+        int next = 0;
+        for(int i = 0; i < count; i++) {
+            cell += (int) Varint.read(in);
+            int value = ArenaProtocol.unzigzag((int) Varint.read(in));
+            for(; next < cell; next++) {
+                if(cells[next] != ArenaEngine.EMPTY) {
+                    matches = false;
+                    cells[next] = ArenaEngine.EMPTY;
+                }
+            }
+            if(cells[cell] != value) {
+                matches = false;
+                cells[cell] = value;
+            }
+            next = cell + 1;
+        }
+        for(; next < cells.length; next++) {
+            if(cells[next] != ArenaEngine.EMPTY) {
+                matches = false;
+                cells[next] = ArenaEngine.EMPTY;
+            }
+        }
+        if(check && !matches) {
+            desyncs++;
+        }
+        this.synced = true;
+        applySnakes();
+    }
+
+    private void applySnakes() {
+        int count = (int) Varint.read(in);
+        for(int i = 0; i < count; i++) {
+            int id = (int) Varint.read(in);
+            if(id >= scores.length) {
+                scores = Arrays.copyOf(scores, id + 1);
+                alive = Arrays.copyOf(alive, id + 1);
+            }
+            alive[id] = in.get() != 0;
+            scores[id] = (int) Varint.read(in);
+        }
+    }
+
+    public void steer(Direction direction) throws IOException {
+        send(direction.ordinal());
+    }
+
+    public void respawn() throws IOException {
+        send(ArenaProtocol.RESPAWN);
+    }
+
+    private void send(int value) throws IOException {
+        command.clear();
+        command.put((byte) value).flip();
+        while(command.hasRemaining()) {
+            channel.write(command);
+        }
+    }
+
+    public int getSnakeId() {
+        return snakeId;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getCell(int x, int y) {
+        return cells[y * columnCount + x];
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public boolean isAlive(int id) {
+        return id < alive.length && alive[id];
+    }
+
+    public int getScore(int id) {
+        return id < scores.length ? scores[id] : 0;
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    public long getDeltas() {
+        return deltas;
+    }
+
+    public long getDesyncs() {
+        return desyncs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,426 @@
+package snakegameeval;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.random.RandomGenerator;
+
+/**
+ * Many snakes on one board. The occupancy grid holds the owning snake's ID + 1
+ * for every body cell, so any collision is a single array read.
+ *
+ * A tick runs in phases, each over all snakes and in parallel for large
+ * arenas. Every decision depends only on the state at the start of the tick,
+ * so the outcome does not depend on thread scheduling:
+ * <ol>
+ * <li>plan: turn, pick the target cell, claim it (two claims on one cell kill both snakes)</li>
+ * <li>resolve: die on entering a body cell, unless it is a tail moving away this tick</li>
+ * <li>vacate: clear tails and the bodies of dying snakes</li>
+ * <li>advance: write the new heads</li>
+ * </ol>
+ * followed by a short sequential pass for scores, fruit and the change list.
+ */
+public class ArenaEngine {
+    public static final int EMPTY = 0;
+    public static final int FRUIT = -1;
+    public static final int FRUIT_SCORE = 100;
+    private static final int PARALLEL_THRESHOLD = 32;
+    private static final int SNAKES_PER_TASK = 16;
+    private static final int INITIAL_BODY_CAPACITY = 16;
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int PLAN = 0;
+    private static final int RESOLVE = 1;
+    private static final int VACATE = 2;
+    private static final int ADVANCE = 3;
+    private final int columnCount;
+    private final int rowCount;
+    private final int cellCount;
+    private final int minLength;
+    private final int fruitTarget;
+    private final int[] occupancy;
+    // Per-cell claim for the current tick: (tick << 32) | snake ID.
+    private final AtomicLongArray claims;
+    private final RandomGenerator random;
+    private final ForkJoinPool pool;
+    private final int[][] bodies;
+    private final int[] bodyHead;
+    private final int[] lengths;
+    private final int[] directions;
+    private final int[] nextDirections;
+    private final int[] targets;
+    private final int[] vacated;
+    private final int[] scores;
+    private final int[] fruitsEaten;
+    private final boolean[] alive;
+    private final boolean[] dying;
+    private final boolean[] growing;
+    private final boolean[] eating;
+    private int snakeCount;
+    private int fruitCount;
+    private int tick;
+    private int[] changedCells = new int[64];
+    private int changedCount;
+
+    public ArenaEngine(int columnCount, int rowCount, int maxSnakes, int fruitTarget, RandomGenerator random, ForkJoinPool pool) {
+        if(columnCount < 2 || rowCount < 2 || columnCount > SnakeEngine.MAX_BOARD_SIZE || rowCount > SnakeEngine.MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 2x2 and "
+                    + SnakeEngine.MAX_BOARD_SIZE + "x" + SnakeEngine.MAX_BOARD_SIZE + ": " + columnCount + "x" + rowCount);
+        }
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.cellCount = columnCount * rowCount;
+        this.minLength = SnakeEngine.MIN_SNAKE_LENGTH;
+        this.fruitTarget = fruitTarget;
+        this.occupancy = new int[cellCount];
+        this.claims = new AtomicLongArray(cellCount);
+        this.random = random;
+        this.pool = pool;
+        this.bodies = new int[maxSnakes][];
+        this.bodyHead = new int[maxSnakes];
+        this.lengths = new int[maxSnakes];
+        this.directions = new int[maxSnakes];
+        this.nextDirections = new int[maxSnakes];
+        this.targets = new int[maxSnakes];
+        this.vacated = new int[maxSnakes];
+        this.scores = new int[maxSnakes];
+        this.fruitsEaten = new int[maxSnakes];
+        this.alive = new boolean[maxSnakes];
+        this.dying = new boolean[maxSnakes];
+        this.growing = new boolean[maxSnakes];
+        this.eating = new boolean[maxSnakes];
+        this.tick = 1;
+        spawnFruits();
+    }
+
+    public int addSnake() {
+        if(snakeCount == bodies.length) {
+            throw new IllegalStateException("Arena is full: " + snakeCount + " snakes");
+        }
+        int id = snakeCount++;
+        bodies[id] = new int[INITIAL_BODY_CAPACITY];
+        respawn(id);
+        return id;
+    }
+
+    public void respawn(int id) {
+        if(alive[id]) {
+            return;
+        }
+        int cell = randomEmptyCell();
+        if(cell < 0) {
+            return;
+        }
+        int x = cell % columnCount;
+        int y = cell / columnCount;
+        // Head for the far side of the board so a new snake does not spawn facing a wall.
+        int direction = Math.abs(x - columnCount / 2) > Math.abs(y - rowCount / 2)
+                ? (x < columnCount / 2 ? 1 : 3)
+                : (y < rowCount / 2 ? 2 : 0);
+        bodyHead[id] = 0;
+        bodies[id][0] = cell;
+        lengths[id] = 1;
+        directions[id] = direction;
+        nextDirections[id] = direction;
+        scores[id] = 0;
+        fruitsEaten[id] = 0;
+        alive[id] = true;
+        occupancy[cell] = id + 1;
+        markChanged(cell);
+    }
+
+    public void kill(int id) {
+        if(!alive[id]) {
+            return;
+        }
+        for(int i = 0; i < lengths[id]; i++) {
+            int cell = bodyCell(id, i);
+            occupancy[cell] = EMPTY;
+            markChanged(cell);
+        }
+        alive[id] = false;
+    }
+
+    public void steer(int id, Direction direction) {
+        // Reversing into the neck is ignored, as in the single-player engine.
+        if(((directions[id] ^ direction.ordinal()) & 1) != 0) {
+            nextDirections[id] = direction.ordinal();
+        }
+    }
+
+    public void step() {
+        tick++;
+        runPhase(PLAN);
+        runPhase(RESOLVE);
+        runPhase(VACATE);
+        runPhase(ADVANCE);
+        for(int id = 0; id < snakeCount; id++) {
+            if(!alive[id]) {
+                continue;
+            }
+            if(dying[id]) {
+                for(int i = 0; i < lengths[id]; i++) {
+                    markChanged(bodyCell(id, i));
+                }
+                alive[id] = false;
+                dying[id] = false;
+                continue;
+            }
+            if(vacated[id] >= 0) {
+                markChanged(vacated[id]);
+            }
+            markChanged(targets[id]);
+            if(eating[id]) {
+                scores[id] += FRUIT_SCORE;
+                fruitsEaten[id]++;
+                fruitCount--;
+            }
+        }
+        spawnFruits();
+    }
+
+    private void runPhase(int phase) {
+        if(pool == null || snakeCount < PARALLEL_THRESHOLD) {
+            runPhase(phase, 0, snakeCount);
+        } else {
+            pool.invoke(new PhaseTask(phase, 0, snakeCount));
+        }
+    }
+
+    private void runPhase(int phase, int from, int to) {
+        for(int id = from; id < to; id++) {
+            if(!alive[id]) {
+                continue;
+            }
+            switch(phase) {
+                case PLAN:
+                    plan(id);
+                    break;
+                case RESOLVE:
+                    resolve(id);
+                    break;
+                case VACATE:
+                    vacate(id);
+                    break;
+                case ADVANCE:
+                    advance(id);
+                    break;
+            }
+        }
+    }
+
+    private void plan(int id) {
+        int direction = nextDirections[id];
+        directions[id] = direction;
+        int head = bodies[id][bodyHead[id]];
+        int x = head % columnCount + DX[direction];
+        int y = head / columnCount + DY[direction];
+        eating[id] = false;
+        growing[id] = lengths[id] <= minLength;
+        if(x < 0 || x >= columnCount || y < 0 || y >= rowCount) {
+            targets[id] = -1;
+            dying[id] = true;
+            return;
+        }
+        int target = y * columnCount + x;
+        targets[id] = target;
+        if(occupancy[target] == FRUIT) {
+            eating[id] = true;
+            growing[id] = true;
+        }
+        long claim = ((long) tick << 32) | id;
+        long previous = claims.getAndSet(target, claim);
+        if((int) (previous >>> 32) == tick) {
+            // Head-to-head: everyone claiming this cell dies, whatever order the claims landed in.
+            dying[id] = true;
+            dying[(int) previous] = true;
+        }
+    }
+
+    private void resolve(int id) {
+        int target = targets[id];
+        if(target < 0) {
+            return;
+        }
+        int owner = occupancy[target];
+        if(owner > 0) {
+            int other = owner - 1;
+            boolean tailMovesAway = target == bodyCell(other, lengths[other] - 1) && !growing[other];
+            if(!tailMovesAway) {
+                dying[id] = true;
+            }
+        }
+    }
+
+    private void vacate(int id) {
+        vacated[id] = -1;
+        if(dying[id]) {
+            for(int i = 0; i < lengths[id]; i++) {
+                occupancy[bodyCell(id, i)] = EMPTY;
+            }
+        } else if(!growing[id]) {
+            int tail = bodyCell(id, lengths[id] - 1);
+            occupancy[tail] = EMPTY;
+            vacated[id] = tail;
+            lengths[id]--;
+        }
+    }
+
+    private void advance(int id) {
+        if(dying[id]) {
+            return;
+        }
+        int[] body = bodies[id];
+        if(lengths[id] == body.length) {
+            int[] grown = new int[body.length * 2];
+            for(int i = 0; i < lengths[id]; i++) {
+                grown[i] = bodyCell(id, i);
+            }
+            bodies[id] = body = grown;
+            bodyHead[id] = 0;
+        }
+        int headSlot = bodyHead[id] == 0 ? body.length - 1 : bodyHead[id] - 1;
+        body[headSlot] = targets[id];
+        bodyHead[id] = headSlot;
+        lengths[id]++;
+        occupancy[targets[id]] = id + 1;
+    }
+
+    private int bodyCell(int id, int index) {
+        int[] body = bodies[id];
+        int slot = bodyHead[id] + index;
+        return body[slot < body.length ? slot : slot - body.length];
+    }
+
+    private void spawnFruits() {
+        while(fruitCount < fruitTarget) {
+            int cell = randomEmptyCell();
+            if(cell < 0) {
+                return;
+            }
+            occupancy[cell] = FRUIT;
+            fruitCount++;
+            markChanged(cell);
+        }
+    }
+
+    private int randomEmptyCell() {
+        for(int attempt = 0; attempt < 64; attempt++) {
+            int cell = random.nextInt(cellCount);
+            if(occupancy[cell] == EMPTY) {
+                return cell;
+            }
+        }
+        // Crowded board: pick uniformly among the empty cells rather than the first one after a random start.
+        int empty = 0;
+        for(int cell = 0; cell < cellCount; cell++) {
+            if(occupancy[cell] == EMPTY) {
+                empty++;
+            }
+        }
+        if(empty == 0) {
+            return -1;
+        }
+        int k = random.nextInt(empty);
+        for(int cell = 0; ; cell++) {
+            if(occupancy[cell] == EMPTY && k-- == 0) {
+                return cell;
+            }
+        }
+    }
+
+    private void markChanged(int cell) {
+        if(changedCount == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, changedCount * 2);
+        }
+        changedCells[changedCount++] = cell;
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    public int getChangedCell(int index) {
+        return changedCells[index];
+    }
+
+    public void clearChanges() {
+        this.changedCount = 0;
+    }
+
+    /**
+     * @return EMPTY, FRUIT, or the owning snake's ID + 1
+     */
+    public int getCell(int cell) {
+        return occupancy[cell];
+    }
+
+    public int getCell(int x, int y) {
+        return occupancy[y * columnCount + x];
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getSnakeCount() {
+        return snakeCount;
+    }
+
+    public boolean isAlive(int id) {
+        return alive[id];
+    }
+
+    public int getLength(int id) {
+        return lengths[id];
+    }
+
+    public int getHeadCell(int id) {
+        return bodies[id][bodyHead[id]];
+    }
+
+    public Direction getDirection(int id) {
+        return DIRECTIONS[directions[id]];
+    }
+
+    public int getScore(int id) {
+        return scores[id];
+    }
+
+    public int getFruitsEaten(int id) {
+        return fruitsEaten[id];
+    }
+
+    private final class PhaseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int phase;
+        private final int from;
+        private final int to;
+
+        PhaseTask(int phase, int from, int to) {
+            this.phase = phase;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= SNAKES_PER_TASK) {
+                runPhase(phase, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PhaseTask(phase, from, mid), new PhaseTask(phase, mid, to));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package snakegameeval;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by ArenaServer and ArenaClient. Every server message is
+ * a varint length followed by a type byte and varint fields; cells are sent
+ * in ascending order as gaps from the previous cell, with the occupancy value
+ * zigzag-encoded (FRUIT is -1). Clients send single command bytes.
+ *
+ * <pre>
+ * WELCOME   snakeId columns rows
+ * KEYFRAME  tick count (gap value)* snakes
+ * DELTA     tick count (gap value)* snakes
+ * snakes =  count (id alive score)*
+ * </pre>
+ */
+public final class ArenaProtocol {
+    public static final int WELCOME = 1;
+    public static final int KEYFRAME = 2;
+    public static final int DELTA = 3;
+    public static final int RESPAWN = 4;
+
+    private ArenaProtocol() {
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static ByteBuffer ensureRemaining(ByteBuffer buffer, int needed) {
+        if(buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
@@ -0,0 +1,463 @@
+package snakegameeval;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Authoritative arena server. One selector thread owns the ArenaEngine: it
+ * accepts players, applies their commands, runs the tick loop and sends each
+ * client the cells that changed. A client that is new, or that fell too far
+ * behind to take more deltas, gets a keyframe instead.
+ */
+public class ArenaServer implements Runnable, AutoCloseable {
+    private static final int KEYFRAME_INTERVAL = 100;
+    private static final int DEFAULT_MAX_PENDING_BYTES = 1 << 20;
+    private final ArenaEngine arena;
+    private final int maxPlayers;
+    private final long nanosPerTick;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private final int[] lastScores;
+    private final boolean[] lastAlive;
+    private int[] changed = new int[64];
+    private ByteBuffer delta = ByteBuffer.allocate(1024);
+    private ByteBuffer keyframe = ByteBuffer.allocate(1024);
+    private int maxPendingBytes = DEFAULT_MAX_PENDING_BYTES;
+    private int sendBufferSize;
+    private volatile boolean running = true;
+    private volatile boolean started;
+    private volatile long bytesSent;
+    private volatile long deltaBytes;
+    private volatile long keyframeBytes;
+    private volatile long resyncs;
+    private volatile long tickNanos;
+
+    public ArenaServer(int port, int columnCount, int rowCount, int maxPlayers, float ticksPerSecond) throws IOException {
+        this.arena = new ArenaEngine(columnCount, rowCount, maxPlayers, Math.max(1, maxPlayers / 2),
+                new SplittableRandom(), null);
+        this.maxPlayers = maxPlayers;
+        this.nanosPerTick = Math.round(1e9 / ticksPerSecond);
+        this.lastScores = new int[maxPlayers];
+        this.lastAlive = new boolean[maxPlayers];
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * A client whose unsent backlog would go past this is resynced from a
+     * keyframe. Call before run().
+     */
+    public void setMaxPendingBytes(int maxPendingBytes) {
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    /**
+     * Socket send buffer for new clients in bytes, or 0 to let the OS size it.
+     * Call before run().
+     */
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    @Override
+    public void run() {
+        this.started = true;
+        long nextTick = System.nanoTime() + nanosPerTick;
+        try {
+            while(running) {
+                long now = System.nanoTime();
+                if(now >= nextTick) {
+                    tick();
+                    long tickEnd = System.nanoTime();
+                    this.tickNanos = tickEnd - now;
+                    nextTick += nanosPerTick;
+                    if(nextTick < tickEnd) {
+                        nextTick = tickEnd + nanosPerTick;
+                    }
+                    continue;
+                }
+                selector.select(Math.max(1L, (nextTick - now) / 1000000L));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if(key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if(key.isReadable()) {
+                                read(key);
+                            }
+                            if(key.isValid() && key.isWritable()) {
+                                flush(key);
+                            }
+                        }
+                    } catch(IOException e) {
+                        disconnect(key);
+                    }
+                }
+            }
+        } catch(IOException e) {
+            if(running) {
+                e.printStackTrace();
+            }
+        } finally {
+            release();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if(channel == null) {
+            return;
+        }
+        int id;
+        if(!freeIds.isEmpty()) {
+            id = freeIds.poll();
+            arena.respawn(id);
+        } else if(arena.getSnakeCount() < maxPlayers) {
+            id = arena.addSnake();
+        } else {
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        if(sendBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+        }
+        Client client = new Client(id);
+        ByteBuffer welcome = frameStart(ByteBuffer.allocate(5 + 1 + 3 * Varint.MAX_SIZE));
+        welcome.put((byte) ArenaProtocol.WELCOME);
+        Varint.write(welcome, id);
+        Varint.write(welcome, arena.getColumnCount());
+        Varint.write(welcome, arena.getRowCount());
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, client);
+        send(key, client, frameEnd(welcome));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Client client = (Client) key.attachment();
+        ByteBuffer in = client.in;
+        in.clear();
+        int read = ((SocketChannel) key.channel()).read(in);
+        if(read < 0) {
+            disconnect(key);
+            return;
+        }
+        in.flip();
+        while(in.hasRemaining()) {
+            int command = in.get();
+            if(command >= 0 && command < 4) {
+                arena.steer(client.id, Direction.values()[command]);
+            } else if(command == ArenaProtocol.RESPAWN) {
+                arena.respawn(client.id);
+            }
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        Client client = (Client) key.attachment();
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch(IOException e) {
+        }
+        if(client != null) {
+            arena.kill(client.id);
+            freeIds.add(client.id);
+        }
+    }
+
+    private void tick() throws IOException {
+        arena.step();
+        boolean keyframeTick = arena.getTick() % KEYFRAME_INTERVAL == 0;
+        boolean deltaEncoded = false;
+        boolean keyframeEncoded = false;
+        for(SelectionKey key : selector.keys()) {
+            if(!(key.attachment() instanceof Client) || !key.isValid()) {
+                continue;
+            }
+            Client client = (Client) key.attachment();
+            boolean resync = client.needsKeyframe;
+            if(!resync) {
+                if(!deltaEncoded) {
+                    encodeDelta();
+                    deltaEncoded = true;
+                }
+                if(offer(key, client, delta)) {
+                    deltaBytes += delta.remaining();
+                }
+            }
+            // Periodic keyframes follow the tick's delta, so clients can check them against their own copy.
+            if((resync || keyframeTick) && key.isValid()) {
+                if(!keyframeEncoded) {
+                    encodeKeyframe();
+                    keyframeEncoded = true;
+                }
+                client.needsKeyframe = false;
+                if(offer(key, client, keyframe)) {
+                    keyframeBytes += keyframe.remaining();
+                }
+            }
+        }
+        arena.clearChanges();
+        for(int id = 0; id < arena.getSnakeCount(); id++) {
+            lastScores[id] = arena.getScore(id);
+            lastAlive[id] = arena.isAlive(id);
+        }
+    }
+
+    private void encodeDelta() {
+        int count = arena.getChangedCount();
+        if(changed.length < count) {
+            changed = new int[Math.max(count, changed.length * 2)];
+        }
+        for(int i = 0; i < count; i++) {
+            changed[i] = arena.getChangedCell(i);
+        }
+        Arrays.sort(changed, 0, count);
+        int unique = 0;
+        for(int i = 0; i < count; i++) {
+            if(unique == 0 || changed[unique - 1] != changed[i]) {
+                changed[unique++] = changed[i];
+            }
+        }
+        delta = ArenaProtocol.ensureRemaining(frameStart(delta), 1 + 2 * Varint.MAX_SIZE + unique * 2 * 5);
+        delta.put((byte) ArenaProtocol.DELTA);
+        Varint.write(delta, arena.getTick());
+        Varint.write(delta, unique);
+        int previous = 0;
+        for(int i = 0; i < unique; i++) {
+            Varint.write(delta, changed[i] - previous);
+            Varint.write(delta, ArenaProtocol.zigzag(arena.getCell(changed[i])) & 0xFFFFFFFFL);
+            previous = changed[i];
+        }
+        delta = encodeSnakes(delta, false);
+        delta = frameEnd(delta);
+    }
+
+    private void encodeKeyframe() {
+        int cellCount = arena.getColumnCount() * arena.getRowCount();
+        int occupied = 0;
+        for(int cell = 0; cell < cellCount; cell++) {
+            if(arena.getCell(cell) != ArenaEngine.EMPTY) {
+                occupied++;
+            }
+        }
+        keyframe = ArenaProtocol.ensureRemaining(frameStart(keyframe), 1 + 2 * Varint.MAX_SIZE + occupied * 2 * 5);
+        keyframe.put((byte) ArenaProtocol.KEYFRAME);
+        Varint.write(keyframe, arena.getTick());
+        Varint.write(keyframe, occupied);
+        int previous = 0;
+        for(int cell = 0; cell < cellCount; cell++) {
+            int value = arena.getCell(cell);
+            if(value != ArenaEngine.EMPTY) {
+                Varint.write(keyframe, cell - previous);
+                Varint.write(keyframe, ArenaProtocol.zigzag(value) & 0xFFFFFFFFL);
+                previous = cell;
+            }
+        }
+        keyframe = encodeSnakes(keyframe, true);
+        keyframe = frameEnd(keyframe);
+    }
+
+    private ByteBuffer encodeSnakes(ByteBuffer out, boolean all) {
+        int snakes = arena.getSnakeCount();
+        int count = 0;
+        for(int id = 0; id < snakes; id++) {
+            if(all || arena.getScore(id) != lastScores[id] || arena.isAlive(id) != lastAlive[id]) {
+                count++;
+            }
+        }
+        out = ArenaProtocol.ensureRemaining(out, Varint.MAX_SIZE + count * (2 * 5 + 1));
+        Varint.write(out, count);
+        for(int id = 0; id < snakes; id++) {
+            if(all || arena.getScore(id) != lastScores[id] || arena.isAlive(id) != lastAlive[id]) {
+                Varint.write(out, id);
+                out.put((byte) (arena.isAlive(id) ? 1 : 0));
+                Varint.write(out, arena.getScore(id));
+            }
+        }
+        return out;
+    }
+
+    // Messages are built after a gap big enough for the longest varint length prefix.
+    private static ByteBuffer frameStart(ByteBuffer buffer) {
+        buffer.clear();
+        buffer.position(5);
+        return buffer;
+    }
+
+    private static ByteBuffer frameEnd(ByteBuffer buffer) {
+        int length = buffer.position() - 5;
+        int prefix = 1;
+        for(int remaining = length >>> 7; remaining != 0; remaining >>>= 7) {
+            prefix++;
+        }
+        buffer.position(5 - prefix);
+        Varint.write(buffer, length);
+        buffer.position(5 - prefix);
+        buffer.limit(5 + length);
+        return buffer;
+    }
+
+    private boolean offer(SelectionKey key, Client client, ByteBuffer message) {
+        if(client.out.size() > 1 && client.pending + message.remaining() > maxPendingBytes) {
+            // Too far behind for deltas to help; drop the backlog and resync from a keyframe.
+            client.dropUnsent();
+            client.needsKeyframe = true;
+            resyncs++;
+            return false;
+        }
+        try {
+            send(key, client, message.duplicate());
+            return true;
+        } catch(IOException e) {
+            disconnect(key);
+            return false;
+        }
+    }
+
+    private void send(SelectionKey key, Client client, ByteBuffer message) throws IOException {
+        int start = message.position();
+        if(client.out.isEmpty()) {
+            int written = ((SocketChannel) key.channel()).write(message);
+            bytesSent += written;
+        }
+        if(message.hasRemaining()) {
+            // Tick messages are reused next tick, so the frame is copied; the copy
+            // keeps the written offset as its position, which marks it as in flight.
+            ByteBuffer copy = ByteBuffer.allocate(message.limit() - start);
+            int written = message.position() - start;
+            copy.put(message.position(start)).position(written);
+            client.enqueue(copy);
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void flush(SelectionKey key) throws IOException {
+        Client client = (Client) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        while(!client.out.isEmpty()) {
+            ByteBuffer head = client.out.peek();
+            int written = channel.write(head);
+            client.pending -= written;
+            bytesSent += written;
+            if(head.hasRemaining()) {
+                break;
+            }
+            client.out.poll();
+        }
+        key.interestOps(client.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    public ArenaEngine getArena() {
+        return arena;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getDeltaBytes() {
+        return deltaBytes;
+    }
+
+    public long getKeyframeBytes() {
+        return keyframeBytes;
+    }
+
+    public long getResyncs() {
+        return resyncs;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Stops the loop; the selector thread closes the sockets on its way out.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        if(!started) {
+            release();
+        }
+    }
+
+    private synchronized void release() {
+        if(!selector.isOpen()) {
+            return;
+        }
+        for(SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch(IOException e) {
+            }
+        }
+        try {
+            selector.close();
+        } catch(IOException e) {
+        }
+    }
+
+    private static final class Client {
+        private final int id;
+        private final ByteBuffer in = ByteBuffer.allocate(256);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private int pending;
+        private boolean needsKeyframe = true;
+
+        Client(int id) {
+            this.id = id;
+        }
+
+        void enqueue(ByteBuffer message) {
+            out.add(message);
+            pending += message.remaining();
+        }
+
+        /**
+         * Drops every queued frame except one already partly on the wire, which
+         * has to be finished or the client would lose the frame boundaries.
+         */
+        void dropUnsent() {
+            ByteBuffer head = out.peek();
+            out.clear();
+            pending = 0;
+            if(head != null && head.position() > 0) {
+                enqueue(head);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7211;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        ArenaServer server = new ArenaServer(port, size, size, players, 9.0f);
+        System.out.println("Arena server listening on port " + server.getPort());
+        server.run();
+    }
+}
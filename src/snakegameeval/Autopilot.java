@@ -0,0 +1,234 @@
+package snakegameeval;
+
+import java.util.Arrays;
+
+/**
+ * Drives the snake to the fruit with A* over the board, falling back to a
+ * Hamiltonian cycle when no path leaves enough room for the body. All search
+ * state lives in arrays sized once per board: visited cells are marked with a
+ * generation stamp, and the frontier is a single int array holding the two
+ * f-cost buckets (f only ever grows by 0 or 2 on a grid with a Manhattan
+ * heuristic) as stacks growing in from either end.
+ */
+public class Autopilot implements SnakeController {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    private SnakeEngine engine;
+    private HamiltonianCycle cycle;
+    private int columnCount;
+    private int rowCount;
+    private int[] visited;
+    private byte[] firstMove;
+    private int[] frontier;
+    private int stamp;
+    private volatile long lastPlanNanos;
+    private volatile long maxPlanNanos;
+    private long totalPlanNanos;
+    private long planCount;
+
+    @Override
+    public void startGame(SnakeEngine engine) {
+        this.engine = engine;
+        if(cycle == null || columnCount != engine.getColumnCount() || rowCount != engine.getRowCount()) {
+            this.columnCount = engine.getColumnCount();
+            this.rowCount = engine.getRowCount();
+            this.cycle = new HamiltonianCycle(columnCount, rowCount);
+            this.visited = new int[columnCount * rowCount];
+            this.firstMove = new byte[columnCount * rowCount];
+            this.frontier = new int[columnCount * rowCount];
+            this.stamp = 0;
+        }
+    }
+
+    @Override
+    public Direction nextDirection(SnakeEngine engine) {
+        if(this.engine != engine) {
+            startGame(engine);
+        }
+        long start = System.nanoTime();
+        Direction direction = plan();
+        long elapsed = System.nanoTime() - start;
+        this.lastPlanNanos = elapsed;
+        if(elapsed > maxPlanNanos) {
+            this.maxPlanNanos = elapsed;
+        }
+        totalPlanNanos += elapsed;
+        planCount++;
+        return direction == engine.getDirection() ? null : direction;
+    }
+
+    private Direction plan() {
+        Direction current = engine.getDirection();
+        if(current == null) {
+            return null;
+        }
+        // A queued direction takes effect one tick late, so plan from the cell the head enters next.
+        int x = engine.getHeadX() + DX[current.ordinal()];
+        int y = engine.getHeadY() + DY[current.ordinal()];
+        if(x < 0 || x >= columnCount || y < 0 || y >= rowCount) {
+            return null;
+        }
+        int from = y * columnCount + x;
+        int room = engine.getLength() + 1;
+        int fruit = engine.getFruitCell();
+        if(fruit >= 0 && fruit != from) {
+            int move = search(from, fruit);
+            if(move >= 0 && space(neighbour(from, move), from, room) >= room) {
+                return DIRECTIONS[move];
+            }
+        }
+        Direction follow = cycle.get(x, y);
+        if(follow != null && follow.ordinal() != (current.ordinal() ^ 2)) {
+            int next = neighbour(from, follow.ordinal());
+            if(next >= 0 && space(next, from, room) >= room) {
+                return follow;
+            }
+        }
+        int best = -1;
+        int bestSpace = 0;
+        for(int move = 0; move < 4; move++) {
+            if(move == (current.ordinal() ^ 2)) {
+                continue;
+            }
+            int next = neighbour(from, move);
+            if(next >= 0) {
+                int free = space(next, from, room);
+                if(free > bestSpace) {
+                    best = move;
+                    bestSpace = free;
+                }
+            }
+        }
+        return best < 0 ? current : DIRECTIONS[best];
+    }
+
+    private int search(int start, int goal) {
+        int generation = nextStamp();
+        int goalX = goal % columnCount;
+        int goalY = goal / columnCount;
+        int low = 0;
+        int high = frontier.length;
+        boolean lowIsCurrent = true;
+        visited[start] = generation;
+        frontier[low++] = start;
+        while(true) {
+            int cell;
+            if(lowIsCurrent) {
+                if(low == 0) {
+                    if(high == frontier.length) {
+                        return -1;
+                    }
+                    lowIsCurrent = false;
+                    continue;
+                }
+                cell = frontier[--low];
+            } else {
+                if(high == frontier.length) {
+                    if(low == 0) {
+                        return -1;
+                    }
+                    lowIsCurrent = true;
+                    continue;
+                }
+                cell = frontier[high++];
+            }
+            int x = cell % columnCount;
+            int y = cell / columnCount;
+            int distance = Math.abs(x - goalX) + Math.abs(y - goalY);
+            for(int move = 0; move < 4; move++) {
+                int nx = x + DX[move];
+                int ny = y + DY[move];
+                if(nx < 0 || nx >= columnCount || ny < 0 || ny >= rowCount) {
+                    continue;
+                }
+                int next = ny * columnCount + nx;
+                if(visited[next] == generation || engine.isOccupied(next)) {
+                    continue;
+                }
+                visited[next] = generation;
+                firstMove[next] = (byte) (cell == start ? move : firstMove[cell]);
+                if(next == goal) {
+                    return firstMove[next];
+                }
+                boolean closer = Math.abs(nx - goalX) + Math.abs(ny - goalY) < distance;
+                if(closer == lowIsCurrent) {
+                    frontier[low++] = next;
+                } else {
+                    frontier[--high] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts free cells reachable from start without passing through blocked,
+     * stopping once limit cells have been found.
+     */
+    private int space(int start, int blocked, int limit) {
+        if(engine.isOccupied(start)) {
+            return 0;
+        }
+        int generation = nextStamp();
+        visited[blocked] = generation;
+        visited[start] = generation;
+        int read = 0;
+        int write = 0;
+        frontier[write++] = start;
+        while(read < write && write < limit) {
+            int cell = frontier[read++];
+            int x = cell % columnCount;
+            int y = cell / columnCount;
+            for(int move = 0; move < 4; move++) {
+                int nx = x + DX[move];
+                int ny = y + DY[move];
+                if(nx < 0 || nx >= columnCount || ny < 0 || ny >= rowCount) {
+                    continue;
+                }
+                int next = ny * columnCount + nx;
+                if(visited[next] != generation && !engine.isOccupied(next)) {
+                    visited[next] = generation;
+                    frontier[write++] = next;
+                }
+            }
+        }
+        return write;
+    }
+
+    private int neighbour(int cell, int move) {
+        int x = cell % columnCount + DX[move];
+        int y = cell / columnCount + DY[move];
+        if(x < 0 || x >= columnCount || y < 0 || y >= rowCount) {
+            return -1;
+        }
+        return y * columnCount + x;
+    }
+
+    private int nextStamp() {
+        if(++stamp == 0) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    public long getLastPlanNanos() {
+        return lastPlanNanos;
+    }
+
+    public long getMaxPlanNanos() {
+        return maxPlanNanos;
+    }
+
+    public long getTotalPlanNanos() {
+        return totalPlanNanos;
+    }
+
+    public long getPlanCount() {
+        return planCount;
+    }
+
+    public double getMeanPlanNanos() {
+        return planCount == 0 ? 0 : (double) totalPlanNanos / planCount;
+    }
+}
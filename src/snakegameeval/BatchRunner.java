@@ -0,0 +1,129 @@
+package snakegameeval;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Runs many independent headless games across a fork-join pool. Game seeds
+ * come from splitting one SplittableRandom down the task tree, so a batch
+ * plays the same games whatever the parallelism.
+ */
+public class BatchRunner {
+    private static final int GAMES_PER_LEAF = 16;
+    private final int columnCount;
+    private final int rowCount;
+    private final Function<SplittableRandom, SnakeController> controllers;
+    private long maxTicks = 100000;
+
+    public BatchRunner(int columnCount, int rowCount, Function<SplittableRandom, SnakeController> controllers) {
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.controllers = controllers;
+    }
+
+    public BatchRunner setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    public BatchStats run(int games, long seed, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            BatchStats stats = pool.invoke(new GameTask(0, games, new SplittableRandom(seed)));
+            stats.setElapsedNanos(System.nanoTime() - start);
+            return stats;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void playGames(int count, SplittableRandom random, BatchStats stats) {
+        SnakeEngine engine = new SnakeEngine(columnCount, rowCount, random);
+        for(int i = 0; i < count; i++) {
+            SplittableRandom game = random.split();
+            engine.setRandom(game);
+            engine.reset();
+            SnakeController controller = controllers.apply(game.split());
+            controller.startGame(engine);
+            while(!engine.isGameOver() && engine.getTick() < maxTicks) {
+                Direction direction = controller.nextDirection(engine);
+                if(direction != null) {
+                    engine.addDirection(direction);
+                }
+                engine.step();
+            }
+            controller.endGame(engine);
+            stats.add(engine, !engine.isGameOver());
+        }
+    }
+
+    private final class GameTask extends RecursiveTask<BatchStats> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        GameTask(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected BatchStats compute() {
+            if(to - from <= GAMES_PER_LEAF) {
+                BatchStats stats = new BatchStats();
+                playGames(to - from, random, stats);
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            GameTask left = new GameTask(from, mid, random.split());
+            left.fork();
+            BatchStats right = new GameTask(mid, to, random).compute();
+            return right.merge(left.join());
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        String bot = args.length > 2 ? args[2] : "random";
+        int columns = Integer.getInteger("snake.columns", 27);
+        int rows = Integer.getInteger("snake.rows", 27);
+        LongAdder planNanos = new LongAdder();
+        LongAdder plans = new LongAdder();
+        Function<SplittableRandom, SnakeController> controllers;
+        if(bot.equals("autopilot")) {
+            controllers = random -> new Autopilot() {
+                @Override
+                public void endGame(SnakeEngine engine) {
+                    planNanos.add(getTotalPlanNanos());
+                    plans.add(getPlanCount());
+                }
+            };
+        } else {
+            controllers = RandomController::new;
+        }
+        BatchRunner runner = new BatchRunner(columns, rows, controllers);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        runner.run(games, seed, cores);
+        System.out.println(runner.run(games, seed, cores));
+        if(plans.sum() > 0) {
+            System.out.printf("Autopilot planning: %.1f us per tick%n", planNanos.sum() / 1e3 / plans.sum());
+        }
+        double baseline = 0;
+        for(int parallelism = 1; parallelism <= cores; parallelism = parallelism < cores ? Math.min(parallelism * 2, cores) : cores + 1) {
+            BatchStats stats = runner.run(games, seed, parallelism);
+            if(parallelism == 1) {
+                baseline = stats.getGamesPerSecond();
+            }
+            System.out.printf("%3d cores: %10.0f games/s, efficiency %5.1f%%%n", parallelism,
+                    stats.getGamesPerSecond(), 100 * stats.getGamesPerSecond() / (baseline * parallelism));
+        }
+    }
+}
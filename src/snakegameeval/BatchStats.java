@@ -0,0 +1,112 @@
+package snakegameeval;
+
+/**
+ * Score and length totals for a batch of headless games. Each fork-join leaf
+ * fills its own instance; they are merged on the way back up.
+ */
+public class BatchStats {
+    private long games;
+    private long timeouts;
+    private long ticks;
+    private long scoreSum;
+    private double scoreSquares;
+    private int minScore = Integer.MAX_VALUE;
+    private int maxScore;
+    private long lengthSum;
+    private int maxLength;
+    private long fruitsSum;
+    private long elapsedNanos;
+
+    void add(SnakeEngine engine, boolean timedOut) {
+        int score = engine.getScore();
+        games++;
+        if(timedOut) {
+            timeouts++;
+        }
+        ticks += engine.getTick();
+        scoreSum += score;
+        scoreSquares += (double) score * score;
+        minScore = Math.min(minScore, score);
+        maxScore = Math.max(maxScore, score);
+        lengthSum += engine.getLength();
+        maxLength = Math.max(maxLength, engine.getLength());
+        fruitsSum += engine.getFruitsEaten();
+    }
+
+    BatchStats merge(BatchStats other) {
+        games += other.games;
+        timeouts += other.timeouts;
+        ticks += other.ticks;
+        scoreSum += other.scoreSum;
+        scoreSquares += other.scoreSquares;
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        lengthSum += other.lengthSum;
+        maxLength = Math.max(maxLength, other.maxLength);
+        fruitsSum += other.fruitsSum;
+        return this;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public double getMeanScore() {
+        return games == 0 ? 0 : (double) scoreSum / games;
+    }
+
+    public double getScoreStdDev() {
+        if(games == 0) {
+            return 0;
+        }
+        double mean = getMeanScore();
+        return Math.sqrt(Math.max(0, scoreSquares / games - mean * mean));
+    }
+
+    public int getMinScore() {
+        return games == 0 ? 0 : minScore;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public double getMeanLength() {
+        return games == 0 ? 0 : (double) lengthSum / games;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public double getMeanFruitsEaten() {
+        return games == 0 ? 0 : (double) fruitsSum / games;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games (%d timed out), score %.1f +/- %.1f [%d..%d], length %.1f (max %d), "
+                + "%.1f fruits, %d ticks, %.0f games/s", games, timeouts, getMeanScore(), getScoreStdDev(),
+                getMinScore(), maxScore, getMeanLength(), maxLength, getMeanFruitsEaten(), ticks, getGamesPerSecond());
+    }
+}
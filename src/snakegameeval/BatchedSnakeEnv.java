@@ -0,0 +1,282 @@
+package snakegameeval;
+
+import java.util.Arrays;
+
+/**
+ * Many independent single-player games stepped in lockstep for training, with
+ * the same movement rules as SnakeEngine. All state is in primitive arrays
+ * indexed by environment, and the boards share one int[].
+ *
+ * Each body cell holds the value of its game's clock at which it becomes free;
+ * the clock advances on every move that does not grow the snake. A cell is
+ * occupied while its value is above the clock, so the body needs no ring
+ * buffer, a collision is one comparison, and a reset just moves the clock past
+ * every stamp on the board.
+ *
+ * Finished games restart inside step(), so the observations after a step with
+ * done set already describe the new game.
+ */
+public class BatchedSnakeEnv {
+    /**
+     * Per game: danger one move away in each direction (4), current direction
+     * one-hot (4), fruit offset in x and y scaled to the board, and length
+     * scaled to the board area.
+     */
+    public static final int OBSERVATION_SIZE = 11;
+    public static final float FRUIT_REWARD = 1.0f;
+    public static final float DEATH_REWARD = -1.0f;
+    private static final int CLOCK_LIMIT = Integer.MAX_VALUE / 2;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private final int envCount;
+    private final int columnCount;
+    private final int rowCount;
+    private final int cellCount;
+    private final int minLength;
+    private final int[] board;
+    private final int[] clocks;
+    private final int[] headX;
+    private final int[] headY;
+    private final int[] directions;
+    private final int[] lengths;
+    private final int[] fruitCells;
+    private final int[] stepsSinceFruit;
+    private final long[] seeds;
+    private final float[] observations;
+    private final float[] rewards;
+    private final boolean[] dones;
+    private int maxStepsWithoutFruit;
+
+    public BatchedSnakeEnv(int envCount, int columnCount, int rowCount, long seed) {
+        if(columnCount < 2 || rowCount < 2 || (long) envCount * columnCount * rowCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported batch: " + envCount + " x " + columnCount + "x" + rowCount);
+        }
+        this.envCount = envCount;
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.cellCount = columnCount * rowCount;
+        this.minLength = SnakeEngine.MIN_SNAKE_LENGTH;
+        this.board = new int[envCount * cellCount];
+        this.clocks = new int[envCount];
+        this.headX = new int[envCount];
+        this.headY = new int[envCount];
+        this.directions = new int[envCount];
+        this.lengths = new int[envCount];
+        this.fruitCells = new int[envCount];
+        this.stepsSinceFruit = new int[envCount];
+        this.seeds = new long[envCount];
+        this.observations = new float[envCount * OBSERVATION_SIZE];
+        this.rewards = new float[envCount];
+        this.dones = new boolean[envCount];
+        this.maxStepsWithoutFruit = cellCount;
+        for(int env = 0; env < envCount; env++) {
+            seeds[env] = seed + env * 0x9E3779B97F4A7C15L;
+        }
+        reset();
+    }
+
+    /**
+     * Games that go this many moves without eating are ended, so a policy
+     * that loops forever cannot stall training.
+     */
+    public void setMaxStepsWithoutFruit(int maxStepsWithoutFruit) {
+        this.maxStepsWithoutFruit = maxStepsWithoutFruit;
+    }
+
+    public void reset() {
+        for(int env = 0; env < envCount; env++) {
+            restart(env);
+            rewards[env] = 0.0f;
+            dones[env] = false;
+        }
+        observe();
+    }
+
+    /**
+     * Advances every game by one move.
+     *
+     * @param actions a Direction ordinal per game; reversals and anything
+     *                outside 0-3 keep the current direction
+     */
+    public void step(int[] actions) {
+        int columns = columnCount;
+        int rows = rowCount;
+        int cells = cellCount;
+        for(int env = 0; env < envCount; env++) {
+            int action = actions[env];
+            int direction = directions[env];
+            if(action >= 0 && action < 4 && ((action ^ direction) & 1) != 0) {
+                direction = action;
+            }
+            directions[env] = direction;
+            int x = headX[env] + (direction == 1 ? 1 : direction == 3 ? -1 : 0);
+            int y = headY[env] + (direction == 2 ? 1 : direction == 0 ? -1 : 0);
+            boolean wall = x < 0 || x >= columns || y < 0 || y >= rows;
+            int target = wall ? 0 : y * columns + x;
+            boolean eats = !wall && target == fruitCells[env];
+            boolean grows = eats || lengths[env] <= minLength;
+            int clock = clocks[env] + (grows ? 0 : 1);
+            boolean dies = wall || board[env * cells + target] > clock;
+            boolean starves = !dies && !eats && stepsSinceFruit[env] + 1 >= maxStepsWithoutFruit;
+            rewards[env] = dies ? DEATH_REWARD : eats ? FRUIT_REWARD : 0.0f;
+            dones[env] = dies || starves;
+            if(!dies) {
+                int length = lengths[env] + (grows ? 1 : 0);
+                board[env * cells + target] = clock + length;
+                clocks[env] = clock;
+                lengths[env] = length;
+                headX[env] = x;
+                headY[env] = y;
+                stepsSinceFruit[env] = eats ? 0 : stepsSinceFruit[env] + 1;
+            }
+        }
+        for(int env = 0; env < envCount; env++) {
+            if(dones[env]) {
+                restart(env);
+            } else if(stepsSinceFruit[env] == 0 && !spawnFruit(env)) {
+                // The snake fills the board.
+                dones[env] = true;
+                restart(env);
+            }
+        }
+        observe();
+    }
+
+    private void restart(int env) {
+        int length = lengths[env];
+        int clock = clocks[env] + length + 1;
+        if(clock > CLOCK_LIMIT) {
+            Arrays.fill(board, env * cellCount, (env + 1) * cellCount, 0);
+            clock = 0;
+        }
+        int x = columnCount / 2;
+        int y = rowCount / 2;
+        board[env * cellCount + y * columnCount + x] = clock + 1;
+        clocks[env] = clock;
+        headX[env] = x;
+        headY[env] = y;
+        directions[env] = Direction.North.ordinal();
+        lengths[env] = 1;
+        stepsSinceFruit[env] = 0;
+        spawnFruit(env);
+    }
+
+    private boolean spawnFruit(int env) {
+        int base = env * cellCount;
+        int clock = clocks[env];
+        if(lengths[env] >= cellCount) {
+            fruitCells[env] = -1;
+            return false;
+        }
+        for(int attempt = 0; attempt < 64; attempt++) {
+            int cell = nextInt(env, cellCount);
+            if(board[base + cell] <= clock) {
+                fruitCells[env] = cell;
+                return true;
+            }
+        }
+        // Crowded board: pick uniformly among the free cells rather than the first one after a random start.
+        int free = 0;
+        for(int cell = 0; cell < cellCount; cell++) {
+            if(board[base + cell] <= clock) {
+                free++;
+            }
+        }
+        if(free == 0) {
+            fruitCells[env] = -1;
+            return false;
+        }
+        int k = nextInt(env, free);
+        for(int cell = 0; ; cell++) {
+            if(board[base + cell] <= clock && k-- == 0) {
+                fruitCells[env] = cell;
+                return true;
+            }
+        }
+    }
+
+    // SplitMix64 kept in a long[] so each game has its own stream without a Random object.
+    private int nextInt(int env, int bound) {
+        long z = seeds[env] += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
+    private void observe() {
+        int columns = columnCount;
+        int rows = rowCount;
+        int cells = cellCount;
+        float invColumns = 1.0f / columns;
+        float invRows = 1.0f / rows;
+        float invCells = 1.0f / cells;
+        for(int env = 0; env < envCount; env++) {
+            int o = env * OBSERVATION_SIZE;
+            int x = headX[env];
+            int y = headY[env];
+            int base = env * cells + y * columns + x;
+            // The tail moves away on the next step unless the snake is still growing.
+            int clock = clocks[env] + (lengths[env] <= minLength ? 0 : 1);
+            observations[o] = y == 0 || board[base - columns] > clock ? 1.0f : 0.0f;
+            observations[o + 1] = x == columns - 1 || board[base + 1] > clock ? 1.0f : 0.0f;
+            observations[o + 2] = y == rows - 1 || board[base + columns] > clock ? 1.0f : 0.0f;
+            observations[o + 3] = x == 0 || board[base - 1] > clock ? 1.0f : 0.0f;
+            int direction = directions[env];
+            observations[o + 4] = direction == 0 ? 1.0f : 0.0f;
+            observations[o + 5] = direction == 1 ? 1.0f : 0.0f;
+            observations[o + 6] = direction == 2 ? 1.0f : 0.0f;
+            observations[o + 7] = direction == 3 ? 1.0f : 0.0f;
+            int fruit = fruitCells[env];
+            observations[o + 8] = fruit < 0 ? 0.0f : (fruit % columns - x) * invColumns;
+            observations[o + 9] = fruit < 0 ? 0.0f : (fruit / columns - y) * invRows;
+            observations[o + 10] = lengths[env] * invCells;
+        }
+    }
+
+    /**
+     * @return OBSERVATION_SIZE floats per game, rewritten in place by every step
+     */
+    public float[] getObservations() {
+        return observations;
+    }
+
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    public int getEnvCount() {
+        return envCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isOccupied(int env, int x, int y) {
+        return board[env * cellCount + y * columnCount + x] > clocks[env];
+    }
+
+    public int getFruitCell(int env) {
+        return fruitCells[env];
+    }
+
+    public int getHeadCell(int env) {
+        return headY[env] * columnCount + headX[env];
+    }
+
+    public int getLength(int env) {
+        return lengths[env];
+    }
+
+    public Direction getDirection(int env) {
+        return DIRECTIONS[directions[env]];
+    }
+}
@@ -0,0 +1,116 @@
+package snakegameeval;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+public class BoardCanvas extends Canvas implements Runnable {
+    private static final long serialVersionUID = 3127853092446231915L;
+    private static final long IDLE_NANOS = 50000000L;
+    private final SnakeEngine game;
+    private final Clock logicTimer;
+    private final BoardRenderer renderer;
+    private final int buffers;
+    private final long nanosPerFrame;
+    private volatile boolean running;
+    private Thread renderThread;
+
+    public BoardCanvas(SnakeEngine game, Clock logicTimer, int buffers, int maxFps) {
+        this.game = game;
+        this.logicTimer = logicTimer;
+        this.renderer = new BoardRenderer(game, BoardPanel.TILE_SIZE, Color.green);
+        this.buffers = buffers;
+        this.nanosPerFrame = maxFps > 0 ? 1000000000L / maxFps : 0L;
+        setPreferredSize(new Dimension(BoardPanel.VIEW_WIDTH, BoardPanel.VIEW_HEIGHT));
+        setBackground(Color.green);
+        setIgnoreRepaint(true);
+        setFocusable(false);
+    }
+
+    public void flushChanges() {
+        renderer.flushChanges();
+        game.clearDirty();
+    }
+
+    public void prepare() {
+        renderer.prepare(getWidth(), getHeight(), getGraphicsConfiguration());
+    }
+
+    public void setFirstFrameListener(Runnable listener) {
+        renderer.setFirstFrameListener(listener);
+    }
+
+    public void zoomBy(float factor) {
+        renderer.zoomBy(factor);
+    }
+
+    public void start() {
+        createBufferStrategy(buffers);
+        this.running = true;
+        this.renderThread = new Thread(this, "Board Renderer");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    public void stop() {
+        this.running = false;
+    }
+
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long lastFrame = System.nanoTime();
+        while(running) {
+            int width = getWidth();
+            int height = getHeight();
+            if(width <= 0 || height <= 0) {
+                // Minimized or collapsed; there is nothing to draw into.
+                LockSupport.parkNanos(IDLE_NANOS);
+                lastFrame = System.nanoTime();
+                continue;
+            }
+            do {
+                do {
+                    Graphics2D g2D = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        render(g2D, width, height);
+                    } finally {
+                        g2D.dispose();
+                    }
+                } while(strategy.contentsRestored());
+                strategy.show();
+            } while(strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+            if(nanosPerFrame > 0) {
+                long deadline = lastFrame + nanosPerFrame;
+                long now;
+                while((now = System.nanoTime()) < deadline) {
+                    LockSupport.parkNanos(deadline - now);
+                }
+            }
+            long now = System.nanoTime();
+            if(GameMetrics.ENABLED) {
+                GameMetrics.get().recordCanvasFrame(now - lastFrame);
+            }
+            lastFrame = now;
+        }
+    }
+
+    private void render(Graphics2D g2D, int width, int height) {
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        renderer.paintBoard(g2D, width, height, getGraphicsConfiguration());
+        if(!renderer.usesCamera(width, height)) {
+            renderer.paintHead(g2D, logicTimer.getInterpolation());
+        }
+        renderer.paintMessages(g2D, width, height);
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().recordBoardPaint(System.nanoTime() - start);
+        }
+    }
+}
@@ -2,46 +2,78 @@ package snakegameeval;
 
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.GradientPaint;
-import java.awt.Point;
 import java.awt.RenderingHints;
-import java.awt.geom.Point2D;
-import java.awt.RadialGradientPaint;
 import javax.swing.JPanel;
 
 public class BoardPanel extends JPanel {
     private static final long serialVersionUID = -1102632585936750607L;
-    public static final int COL_COUNT = 27;
-    public static final int ROW_COUNT = 27;
-    public static final int TILE_SIZE = 20;
-    private static final int EYE_LARGE_INSET = TILE_SIZE / 3;
-    private static final int EYE_SMALL_INSET = TILE_SIZE / 6;
-    private static final int EYE_LENGTH = TILE_SIZE / 5;
-    private static final Font FONT = new Font("Arial", Font.ITALIC | Font.BOLD, 25);
-    private SnakeGame game;
-    private TileType[] tiles;
-    public BoardPanel(SnakeGame game) {
+    public static final int COL_COUNT = Integer.getInteger("snake.columns", 27);
+    public static final int ROW_COUNT = Integer.getInteger("snake.rows", 27);
+    public static final int TILE_SIZE = Integer.getInteger("snake.tileSize", 20);
+    public static final int VIEW_WIDTH = Integer.getInteger("snake.viewWidth", Math.min(COL_COUNT * TILE_SIZE, 800));
+    public static final int VIEW_HEIGHT = Integer.getInteger("snake.viewHeight", Math.min(ROW_COUNT * TILE_SIZE, 800));
+    private SnakeEngine game;
+    private BoardRenderer renderer;
+    private Heatmap heatmap;
+    // Heatmap layer shown over the board, or -1 for none.
+    private volatile int heatmapLayer = -1;
+    public BoardPanel(SnakeEngine game) {
         this.game = game;
-        this.tiles = new TileType[ROW_COUNT * COL_COUNT];
-        setPreferredSize(new Dimension(COL_COUNT * TILE_SIZE, ROW_COUNT * TILE_SIZE));
+        this.renderer = new BoardRenderer(game, TILE_SIZE, Color.green);
+        setPreferredSize(new Dimension(VIEW_WIDTH, VIEW_HEIGHT));
         setBackground(Color.green);
     }
-    public void clearBoard() {
-        for (int i = 0; i < tiles.length; i++) {
-            tiles[i] = null;
+    public void setHeatmap(Heatmap heatmap) {
+        this.heatmap = heatmap;
+    }
+    /**
+     * Steps through visits, deaths, fruit and no overlay.
+     */
+    public void cycleHeatmap() {
+        if (heatmap == null) {
+            return;
         }
+        int layer = heatmapLayer + 1;
+        this.heatmapLayer = layer == Heatmap.LAYER_COUNT ? -1 : layer;
+        repaint();
     }
-    public void setTile(Point point, TileType type) {
-        setTile(point.x, point.y, type);
+    public void flushChanges() {
+        boolean changed = renderer.hasChanges();
+        // The renderer gets the cells before any repaint is queued, so a paint
+        // that runs straight away cannot miss them.
+        boolean published = renderer.flushChanges();
+        if (!changed) {
+            if (published) {
+                // Pausing, game over and a new game change only the messages.
+                repaint();
+            }
+            return;
+        }
+        if (game.isAllDirty() || heatmapLayer >= 0 || renderer.usesCamera(getWidth(), getHeight())) {
+            repaint();
+        } else {
+            int columnCount = game.getColumnCount();
+            for (int i = 0; i < game.getDirtyCount(); i++) {
+                int cell = game.getDirtyCell(i);
+                repaint((cell % columnCount) * TILE_SIZE, (cell / columnCount) * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            }
+        }
+        game.clearDirty();
     }
-    public void setTile(int x, int y, TileType type) {
-        tiles[y * ROW_COUNT + x] = type;
+    public void prepare() {
+        renderer.prepare(getWidth(), getHeight(), getGraphicsConfiguration());
+    }
+    public void setFirstFrameListener(Runnable listener) {
+        renderer.setFirstFrameListener(listener);
+    }
+    public void zoomBy(float factor) {
+        renderer.zoomBy(factor);
+        repaint();
     }
     public TileType getTile(int x, int y) {
-        return tiles[y * ROW_COUNT + x];
+        return game.getTile(x, y);
     }
     @Override
     public void paintComponent(Graphics g) {
@@ -49,104 +81,18 @@ public class BoardPanel extends JPanel {
         Graphics2D g2D = (Graphics2D) g;
         g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        for (int x = 0; x < COL_COUNT; x++) {
-            for (int y = 0; y < ROW_COUNT; y++) {
-                TileType type = getTile(x, y);
-                if (type != null) {
-                    drawTile(x * TILE_SIZE, y * TILE_SIZE, type, g2D);
-                }
-            }
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
         }
-        g2D.setColor(Color.black);
-        g2D.drawRect(0, 0, getWidth() - 1, getHeight() - 1);
-        for (int x = 0; x < COL_COUNT; x++) {
-            for (int y = 0; y < ROW_COUNT; y++) {
-                g2D.drawLine(x * TILE_SIZE, 0, x * TILE_SIZE, getHeight());
-                g2D.drawLine(0, y * TILE_SIZE, getWidth(), y * TILE_SIZE);
-            }
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        renderer.paintBoard(g2D, getWidth(), getHeight(), getGraphicsConfiguration());
+        int layer = heatmapLayer;
+        if (layer >= 0) {
+            renderer.paintHeatmap(g2D, getWidth(), getHeight(), heatmap, layer);
         }
-        if (game.isGameOver() || game.isNewGame() || game.isPaused()) {
-            g2D.setColor(Color.black);
-            int centerX = getWidth() / 2;
-            int centerY = getHeight() / 2;
-            String largeMessage = null;
-            String smallMessage = null;
-            if (game.isNewGame()) {
-                largeMessage = "Snake Game!";
-                smallMessage = "Press 'Enter' to Start";
-            } else if (game.isGameOver()) {
-                largeMessage = "Game Over!";
-                smallMessage = "Press 'Enter' to Restart";
-            } else if (game.isPaused()) {
-                largeMessage = "Paused";
-                smallMessage = "Press 'P' to Resume";
-            }
-            g2D.setFont(FONT);
-            g2D.drawString(largeMessage, centerX - g2D.getFontMetrics().stringWidth(largeMessage) / 2, centerY - 50);
-            g2D.drawString(smallMessage, centerX - g2D.getFontMetrics().stringWidth(smallMessage) / 2, centerY + 50);
-        }
-    }
-    private void drawTile(int x, int y, TileType type, Graphics2D g2D) {
-        switch (type) {
-            case Fruit:
-                int fruitX = x + 2;
-                int fruitY = y + 2;
-                int fruitSize = TILE_SIZE - 4;
-
-                float centerX = fruitX + fruitSize / 2.0f;
-                float centerY = fruitY + fruitSize / 2.0f;
-                float radius = fruitSize / 2.0f;
-
-                RadialGradientPaint fruitGradient = new RadialGradientPaint(
-                        new Point2D.Float(centerX, centerY), radius,
-                        new float[]{0.0f, 1.0f},
-                        new Color[]{Color.red.brighter(), Color.red.darker()}
-                );
-                g2D.setPaint(fruitGradient);
-                g2D.fillOval(fruitX, fruitY, fruitSize, fruitSize);
-                RadialGradientPaint highlightGradient = new RadialGradientPaint(
-                        new Point2D.Float(centerX, centerY), radius,
-                        new float[]{0.0f, 0.6f},
-                        new Color[]{new Color(255, 255, 255, 128), new Color(255, 255, 255, 0)}
-                );
-                g2D.setPaint(highlightGradient);
-                g2D.fillOval(fruitX, fruitY, fruitSize, fruitSize);
-                break;
-
-            case SnakeBody:
-                GradientPaint bodyGradient = new GradientPaint(x, y, Color.pink, x + TILE_SIZE, y + TILE_SIZE, Color.black, true);
-                g2D.setPaint(bodyGradient);
-                g2D.fillRect(x, y, TILE_SIZE, TILE_SIZE);
-                break;
-
-            case SnakeHead:
-                GradientPaint headGradient = new GradientPaint(x, y, Color.darkGray.darker(), x + TILE_SIZE, y + TILE_SIZE, Color.darkGray.brighter(), true);
-                g2D.setPaint(headGradient);
-                g2D.fillRect(x, y, TILE_SIZE, TILE_SIZE);
-                g2D.setColor(Color.BLACK);
-                int eyeSize = TILE_SIZE / 5;
-                int eyeOffsetX = TILE_SIZE / 5;
-                int eyeOffsetY = TILE_SIZE / 4;
-
-                switch (game.getDirection()) {
-                    case North:
-                        g2D.fillOval(x + eyeOffsetX, y + eyeOffsetY, eyeSize, eyeSize);
-                        g2D.fillOval(x + TILE_SIZE - eyeOffsetX - eyeSize, y + eyeOffsetY, eyeSize, eyeSize);
-                        break;
-                    case South:
-                        g2D.fillOval(x + eyeOffsetX, y + TILE_SIZE - eyeOffsetY - eyeSize, eyeSize, eyeSize);
-                        g2D.fillOval(x + TILE_SIZE - eyeOffsetX - eyeSize, y + TILE_SIZE - eyeOffsetY - eyeSize, eyeSize, eyeSize);
-                        break;
-                    case West:
-                        g2D.fillOval(x + eyeOffsetY, y + eyeOffsetX, eyeSize, eyeSize);
-                        g2D.fillOval(x + eyeOffsetY, y + TILE_SIZE - eyeOffsetX - eyeSize, eyeSize, eyeSize);
-                        break;
-                    case East:
-                        g2D.fillOval(x + TILE_SIZE - eyeOffsetY - eyeSize, y + eyeOffsetX, eyeSize, eyeSize);
-                        g2D.fillOval(x + TILE_SIZE - eyeOffsetY - eyeSize, y + TILE_SIZE - eyeOffsetX - eyeSize, eyeSize, eyeSize);
-                        break;
-                }
-                break;
+        renderer.paintMessages(g2D, getWidth(), getHeight());
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().recordBoardPaint(System.nanoTime() - start);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,398 @@
+package snakegameeval;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+public class BoardRenderer {
+    private static final Font FONT = new Font("Arial", Font.ITALIC | Font.BOLD, 25);
+    private static final int DIRTY_CAPACITY = 256;
+    private static final float MIN_ZOOM = 0.1f;
+    private static final float MAX_ZOOM = 8.0f;
+    private static final int MIN_GRID_TILE_SIZE = 4;
+    private static final long HEATMAP_REFRESH_NANOS = 1000000000L;
+    private static final int[] HEATMAP_COLORS = {0x0050FF, 0xFF0000, 0xFF00FF};
+    private final SnakeEngine game;
+    private final FrameExchange frames;
+    // Snapshot for the frame being painted; render thread only.
+    private FrameSnapshot snapshot;
+    private final int tileSize;
+    private final Color backgroundColor;
+    private BufferedImage background;
+    private BufferedImage frame;
+    private TileSprites sprites;
+    private volatile Runnable firstFrameListener;
+    private volatile float zoom = 1.0f;
+    private final Object dirtyLock = new Object();
+    private final int[] dirtyCells = new int[DIRTY_CAPACITY];
+    private int dirtyCount;
+    private boolean dirtyAll = true;
+    // Cells taken over from dirtyCells for the frame being painted; render thread only.
+    private final int[] paintCells = new int[DIRTY_CAPACITY];
+    private BufferedImage heatmapImage;
+    private int heatmapImageLayer = -1;
+    private long heatmapRenderedAt;
+    // Board cells the heatmap image currently covers.
+    private int heatmapColumn;
+    private int heatmapRow;
+    private int heatmapColumns;
+    private int heatmapRows;
+
+    public BoardRenderer(SnakeEngine game, int tileSize, Color backgroundColor) {
+        this.game = game;
+        this.frames = new FrameExchange(game, true);
+        this.snapshot = frames.latest();
+        this.tileSize = tileSize;
+        this.backgroundColor = backgroundColor;
+    }
+
+    public boolean hasChanges() {
+        return game.isAllDirty() || game.getDirtyCount() > 0;
+    }
+
+    /**
+     * Publishes the engine state to the render thread and hands over the
+     * cells changed since the last call. The caller clears the engine's dirty
+     * cells afterwards. Logic thread only.
+     *
+     * @return true if a new snapshot was published
+     */
+    public boolean flushChanges() {
+        boolean published = frames.publish();
+        boolean all = game.isAllDirty();
+        int count = game.getDirtyCount();
+        if (!all && count == 0) {
+            return published;
+        }
+        // Handed over only after their snapshot is published, so a painter that
+        // takes these cells always takes a snapshot at least that new.
+        synchronized (dirtyLock) {
+            if (all || dirtyAll || dirtyCount + count > dirtyCells.length) {
+                dirtyAll = true;
+            } else {
+                for (int i = 0; i < count; i++) {
+                    dirtyCells[dirtyCount++] = game.getDirtyCell(i);
+                }
+            }
+        }
+        return published;
+    }
+
+    public void zoomBy(float factor) {
+        float zoomed = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        this.zoom = Math.abs(zoomed - 1.0f) < 0.001f ? 1.0f : zoomed;
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    public boolean usesCamera(int width, int height) {
+        return zoom != 1.0f || game.getColumnCount() * tileSize > width || game.getRowCount() * tileSize > height;
+    }
+
+    public void paintBoard(Graphics2D g2D, int width, int height, GraphicsConfiguration config) {
+        if (usesCamera(width, height)) {
+            this.snapshot = frames.latest();
+            synchronized (dirtyLock) {
+                // The cached frame is not kept up to date while the camera is in use.
+                dirtyAll = true;
+                dirtyCount = 0;
+            }
+            paintViewport(g2D, width, height, config);
+        } else {
+            updateFrame(width, height, config);
+            g2D.drawImage(frame, 0, 0, null);
+        }
+        Runnable listener = firstFrameListener;
+        if (listener != null) {
+            firstFrameListener = null;
+            listener.run();
+        }
+    }
+
+    public void paintHead(Graphics2D g2D, float alpha) {
+        FrameSnapshot frame = snapshot;
+        if (frame.isNewGame() || frame.isGameOver() || frame.getLength() < 2 || alpha >= 1.0f) {
+            return;
+        }
+        int columnCount = game.getColumnCount();
+        int head = frame.getHeadCell();
+        int neck = frame.getNeckCell();
+        int headX = (head % columnCount) * tileSize;
+        int headY = (head / columnCount) * tileSize;
+        int neckX = (neck % columnCount) * tileSize;
+        int neckY = (neck / columnCount) * tileSize;
+        Graphics2D clipped = (Graphics2D) g2D.create(headX, headY, tileSize, tileSize);
+        clipped.drawImage(background, -headX, -headY, null);
+        clipped.dispose();
+        int x = neckX + Math.round((headX - neckX) * alpha);
+        int y = neckY + Math.round((headY - neckY) * alpha);
+        g2D.drawImage(sprites.get(TileType.SnakeHead, frame.getDirection()), x, y, null);
+    }
+
+    private void paintViewport(Graphics2D g2D, int width, int height, GraphicsConfiguration config) {
+        int tile = Math.max(1, Math.round(tileSize * zoom));
+        if (sprites == null || !sprites.matches(tile, config)) {
+            sprites = new TileSprites(tile, config);
+        }
+        int columnCount = game.getColumnCount();
+        int rowCount = game.getRowCount();
+        int boardWidth = columnCount * tile;
+        int boardHeight = rowCount * tile;
+        FrameSnapshot frame = snapshot;
+        int originX = followHead(frame.getHeadX() * tile + tile / 2 - width / 2, boardWidth - width);
+        int originY = followHead(frame.getHeadY() * tile + tile / 2 - height / 2, boardHeight - height);
+        Rectangle clip = g2D.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, width, height);
+        }
+        g2D.setColor(backgroundColor);
+        g2D.fillRect(clip.x, clip.y, clip.width, clip.height);
+        int firstColumn = Math.max(0, Math.floorDiv(originX + clip.x, tile));
+        int lastColumn = Math.min(columnCount - 1, Math.floorDiv(originX + clip.x + clip.width - 1, tile));
+        int firstRow = Math.max(0, Math.floorDiv(originY + clip.y, tile));
+        int lastRow = Math.min(rowCount - 1, Math.floorDiv(originY + clip.y + clip.height - 1, tile));
+        Direction direction = frame.getDirection();
+        for (int y = firstRow; y <= lastRow; y++) {
+            for (int x = firstColumn; x <= lastColumn; x++) {
+                TileType type = frame.getTile(x, y);
+                if (type != null) {
+                    g2D.drawImage(sprites.get(type, direction), x * tile - originX, y * tile - originY, null);
+                }
+            }
+        }
+        g2D.setColor(Color.black);
+        if (tile >= MIN_GRID_TILE_SIZE) {
+            int top = Math.max(clip.y, -originY);
+            int bottom = Math.min(clip.y + clip.height, boardHeight - originY);
+            for (int x = firstColumn; x <= lastColumn; x++) {
+                g2D.drawLine(x * tile - originX, top, x * tile - originX, bottom);
+            }
+            int left = Math.max(clip.x, -originX);
+            int right = Math.min(clip.x + clip.width, boardWidth - originX);
+            for (int y = firstRow; y <= lastRow; y++) {
+                g2D.drawLine(left, y * tile - originY, right, y * tile - originY);
+            }
+        }
+        g2D.drawRect(-originX, -originY, boardWidth - 1, boardHeight - 1);
+    }
+
+    /**
+     * Shades each cell by the log of its counter, from clear for the quietest
+     * cell around the view to strongest for the busiest, through the same
+     * camera as the board. Only the visible cells plus a margin are read, and
+     * they are re-read once a second or when the camera leaves the margin.
+     */
+    public void paintHeatmap(Graphics2D g2D, int width, int height, Heatmap heatmap, int layer) {
+        int columnCount = game.getColumnCount();
+        int rowCount = game.getRowCount();
+        int tile = tileSize;
+        int originX = 0;
+        int originY = 0;
+        if (usesCamera(width, height)) {
+            tile = Math.max(1, Math.round(tileSize * zoom));
+            FrameSnapshot frame = snapshot;
+            originX = followHead(frame.getHeadX() * tile + tile / 2 - width / 2, columnCount * tile - width);
+            originY = followHead(frame.getHeadY() * tile + tile / 2 - height / 2, rowCount * tile - height);
+        }
+        int firstColumn = Math.max(0, Math.floorDiv(originX, tile));
+        int lastColumn = Math.min(columnCount - 1, Math.floorDiv(originX + width - 1, tile));
+        int firstRow = Math.max(0, Math.floorDiv(originY, tile));
+        int lastRow = Math.min(rowCount - 1, Math.floorDiv(originY + height - 1, tile));
+        if (lastColumn < firstColumn || lastRow < firstRow) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (heatmapImage == null || heatmapImageLayer != layer || now - heatmapRenderedAt >= HEATMAP_REFRESH_NANOS
+                || firstColumn < heatmapColumn || lastColumn >= heatmapColumn + heatmapColumns
+                || firstRow < heatmapRow || lastRow >= heatmapRow + heatmapRows) {
+            int marginX = (lastColumn - firstColumn + 1) / 4;
+            int marginY = (lastRow - firstRow + 1) / 4;
+            heatmapColumn = Math.max(0, firstColumn - marginX);
+            heatmapRow = Math.max(0, firstRow - marginY);
+            heatmapColumns = Math.min(columnCount, lastColumn + 1 + marginX) - heatmapColumn;
+            heatmapRows = Math.min(rowCount, lastRow + 1 + marginY) - heatmapRow;
+            renderHeatmap(heatmap, layer, columnCount);
+            heatmapImageLayer = layer;
+            heatmapRenderedAt = now;
+        }
+        int left = heatmapColumn * tile - originX;
+        int top = heatmapRow * tile - originY;
+        g2D.drawImage(heatmapImage, left, top, left + heatmapColumns * tile, top + heatmapRows * tile,
+                0, 0, heatmapColumns, heatmapRows, null);
+    }
+
+    private void renderHeatmap(Heatmap heatmap, int layer, int columnCount) {
+        if (heatmapImage == null || heatmapImage.getWidth() < heatmapColumns || heatmapImage.getHeight() < heatmapRows) {
+            int imageWidth = Math.max(heatmapColumns, heatmapImage == null ? 0 : heatmapImage.getWidth());
+            int imageHeight = Math.max(heatmapRows, heatmapImage == null ? 0 : heatmapImage.getHeight());
+            heatmapImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+        int[] pixels = ((DataBufferInt) heatmapImage.getRaster().getDataBuffer()).getData();
+        int stride = heatmapImage.getWidth();
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int y = heatmapRow; y < heatmapRow + heatmapRows; y++) {
+            for (int x = heatmapColumn; x < heatmapColumn + heatmapColumns; x++) {
+                long count = heatmap.get(layer, y * columnCount + x);
+                min = Math.min(min, count);
+                max = Math.max(max, count);
+            }
+        }
+        double floor = Math.log1p(min);
+        double scale = max > min ? 1.0 / (Math.log1p(max) - floor) : 0.0;
+        int color = HEATMAP_COLORS[layer];
+        for (int y = 0; y < heatmapRows; y++) {
+            int cell = (heatmapRow + y) * columnCount + heatmapColumn;
+            for (int x = 0; x < heatmapColumns; x++) {
+                int alpha = (int) (200 * (Math.log1p(heatmap.get(layer, cell + x)) - floor) * scale);
+                pixels[y * stride + x] = (alpha << 24) | color;
+            }
+        }
+    }
+
+    private static int followHead(int origin, int maxOrigin) {
+        if (maxOrigin <= 0) {
+            return maxOrigin / 2;
+        }
+        return Math.max(0, Math.min(maxOrigin, origin));
+    }
+
+    public void paintMessages(Graphics2D g2D, int width, int height) {
+        FrameSnapshot frame = snapshot;
+        if (frame.isGameOver() || frame.isNewGame() || frame.isPaused()) {
+            g2D.setColor(Color.black);
+            int centerX = width / 2;
+            int centerY = height / 2;
+            String largeMessage = null;
+            String smallMessage = null;
+            if (frame.isNewGame()) {
+                largeMessage = "Snake Game!";
+                smallMessage = "Press 'Enter' to Start";
+            } else if (frame.isGameOver()) {
+                largeMessage = "Game Over!";
+                smallMessage = "Press 'Enter' to Restart";
+            } else if (frame.isPaused()) {
+                largeMessage = "Paused";
+                smallMessage = "Press 'P' to Resume";
+            }
+            g2D.setFont(FONT);
+            g2D.drawString(largeMessage, centerX - g2D.getFontMetrics().stringWidth(largeMessage) / 2, centerY - 50);
+            g2D.drawString(smallMessage, centerX - g2D.getFontMetrics().stringWidth(smallMessage) / 2, centerY + 50);
+        }
+    }
+
+    public void prepare(int width, int height, GraphicsConfiguration config) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (prepareBuffers(width, height, config)) {
+            synchronized (dirtyLock) {
+                dirtyAll = true;
+            }
+        }
+        Graphics2D g2D = background.createGraphics();
+        g2D.getFontMetrics(FONT).stringWidth("Press 'Enter' to Start");
+        g2D.dispose();
+    }
+
+    public void setFirstFrameListener(Runnable listener) {
+        this.firstFrameListener = listener;
+    }
+
+    private boolean prepareBuffers(int width, int height, GraphicsConfiguration config) {
+        boolean rebuilt = false;
+        if (background == null || background.getWidth() != width || background.getHeight() != height) {
+            background = createBuffer(width, height, config, true);
+            frame = createBuffer(width, height, config, false);
+            rebuilt = true;
+        }
+        if (sprites == null || !sprites.matches(tileSize, config)) {
+            sprites = new TileSprites(tileSize, config);
+            rebuilt = true;
+        }
+        return rebuilt;
+    }
+
+    private void updateFrame(int width, int height, GraphicsConfiguration config) {
+        boolean all = prepareBuffers(width, height, config);
+        int count;
+        synchronized (dirtyLock) {
+            // Taken with the cells, so every cell drained here is already in it.
+            this.snapshot = frames.latest();
+            all |= dirtyAll;
+            count = all ? 0 : dirtyCount;
+            System.arraycopy(dirtyCells, 0, paintCells, 0, count);
+            dirtyAll = false;
+            dirtyCount = 0;
+        }
+        int columnCount = game.getColumnCount();
+        int rowCount = game.getRowCount();
+        Graphics2D g2D = frame.createGraphics();
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (all) {
+            g2D.drawImage(background, 0, 0, null);
+            for (int y = 0; y < rowCount; y++) {
+                for (int x = 0; x < columnCount; x++) {
+                    TileType type = snapshot.getTile(x, y);
+                    if (type != null) {
+                        drawTile(x * tileSize, y * tileSize, type, g2D);
+                    }
+                }
+            }
+            drawGrid(g2D, width, height);
+        } else {
+            for (int i = 0; i < count; i++) {
+                int cell = paintCells[i];
+                int x = (cell % columnCount) * tileSize;
+                int y = (cell / columnCount) * tileSize;
+                g2D.setClip(x, y, tileSize, tileSize);
+                g2D.drawImage(background, 0, 0, null);
+                TileType type = snapshot.getTile(cell % columnCount, cell / columnCount);
+                if (type != null) {
+                    drawTile(x, y, type, g2D);
+                }
+                g2D.setColor(Color.black);
+                g2D.drawLine(x, 0, x, height);
+                g2D.drawLine(0, y, width, y);
+                g2D.drawRect(0, 0, width - 1, height - 1);
+            }
+        }
+        g2D.dispose();
+    }
+
+    private BufferedImage createBuffer(int width, int height, GraphicsConfiguration config, boolean withGrid) {
+        BufferedImage image = config != null
+                ? config.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        if (withGrid) {
+            Graphics2D g2D = image.createGraphics();
+            g2D.setColor(backgroundColor);
+            g2D.fillRect(0, 0, width, height);
+            drawGrid(g2D, width, height);
+            g2D.dispose();
+        }
+        return image;
+    }
+
+    private void drawGrid(Graphics2D g2D, int width, int height) {
+        g2D.setColor(Color.black);
+        g2D.drawRect(0, 0, width - 1, height - 1);
+        for (int x = 0; x < game.getColumnCount(); x++) {
+            g2D.drawLine(x * tileSize, 0, x * tileSize, height);
+        }
+        for (int y = 0; y < game.getRowCount(); y++) {
+            g2D.drawLine(0, y * tileSize, width, y * tileSize);
+        }
+    }
+
+    private void drawTile(int x, int y, TileType type, Graphics2D g2D) {
+        g2D.drawImage(sprites.get(type, snapshot.getDirection()), x, y, null);
+    }
+}
@@ -0,0 +1,197 @@
+package snakegameeval;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Save file for a game in progress. The board is not stored: it is the snake
+ * plus the fruit, and the snake is its head cell followed by one 2-bit
+ * direction per segment, four to a byte.
+ *
+ * <pre>
+ * "SNKC" version
+ * varint: columns rows minLength tick score fruitsEaten nextFruitScore fruit+1
+ * flags(1) seed(8) queuedCount(1) queued(1)* varint: length head
+ * moves((length - 1 + 3) / 4) crc32(4)
+ * </pre>
+ *
+ * The seed reseeds the engine on load, so a checkpoint always resumes with
+ * the same fruit.
+ */
+public final class Checkpoint {
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x534E4B43;
+    private static final int PAUSED = 1;
+    private static final int MAX_SIZE = 64 << 20;
+
+    private Checkpoint() {
+    }
+
+    public static byte[] encode(SnakeEngine engine, long seed) {
+        int length = engine.getLength();
+        int queued = engine.getQueuedDirectionCount();
+        byte[] out = new byte[5 + 10 * Varint.MAX_SIZE + 1 + 8 + 1 + queued + (length + 2) / 4 + 4];
+        ByteBuffer buffer = ByteBuffer.wrap(out);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        Varint.write(buffer, engine.getColumnCount());
+        Varint.write(buffer, engine.getRowCount());
+        Varint.write(buffer, engine.getMinLength());
+        Varint.write(buffer, engine.getTick());
+        Varint.write(buffer, engine.getScore());
+        Varint.write(buffer, engine.getFruitsEaten());
+        Varint.write(buffer, engine.getNextFruitScore());
+        Varint.write(buffer, engine.getFruitCell() + 1);
+        buffer.put((byte) (engine.isPaused() ? PAUSED : 0));
+        buffer.putLong(seed);
+        buffer.put((byte) queued);
+        for(int i = 0; i < queued; i++) {
+            buffer.put((byte) engine.getQueuedDirection(i));
+        }
+        Varint.write(buffer, length);
+        int columns = engine.getColumnCount();
+        int previous = engine.getBodyCell(0);
+        Varint.write(buffer, previous);
+        int packed = 0;
+        for(int i = 1; i < length; i++) {
+            int cell = engine.getBodyCell(i);
+            int delta = cell - previous;
+            int move = delta == -columns ? 0 : delta == 1 ? 1 : delta == columns ? 2 : 3;
+            packed |= move << (((i - 1) & 3) << 1);
+            if((i & 3) == 0 || i == length - 1) {
+                buffer.put((byte) packed);
+                packed = 0;
+            }
+            previous = cell;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out, 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return Arrays.copyOf(out, buffer.position());
+    }
+
+    /**
+     * Writes to a temporary file and renames it over the old checkpoint, so a
+     * crash mid-write leaves the previous save intact.
+     */
+    public static void write(Path path, byte[] checkpoint) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(checkpoint);
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static ByteBuffer read(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > MAX_SIZE) {
+                throw new IOException("Checkpoint too large: " + size + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while(buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            return buffer.flip();
+        }
+    }
+
+    public static void load(Path path, SnakeEngine engine) throws IOException {
+        decode(read(path), engine);
+    }
+
+    public static void decode(ByteBuffer in, SnakeEngine engine) throws IOException {
+        try {
+            if(in.remaining() < 9 || in.getInt(in.position()) != MAGIC) {
+                throw new IOException("Not a checkpoint");
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer body = in.duplicate();
+            body.limit(in.limit() - 4);
+            crc.update(body);
+            if((int) crc.getValue() != in.getInt(in.limit() - 4)) {
+                throw new IOException("Checkpoint is corrupt");
+            }
+            in.getInt();
+            int version = in.get();
+            if(version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            int columns = (int) Varint.read(in);
+            int rows = (int) Varint.read(in);
+            int minLength = (int) Varint.read(in);
+            if(columns != engine.getColumnCount() || rows != engine.getRowCount() || minLength != engine.getMinLength()) {
+                throw new IOException("Checkpoint is for a " + columns + "x" + rows + " board with minimum length "
+                        + minLength);
+            }
+            long tick = Varint.read(in);
+            int score = (int) Varint.read(in);
+            int fruitsEaten = (int) Varint.read(in);
+            int nextFruitScore = (int) Varint.read(in);
+            int fruit = (int) Varint.read(in) - 1;
+            int flags = in.get();
+            long seed = in.getLong();
+            int queuedCount = in.get();
+            if(queuedCount < 1 || queuedCount > SnakeEngine.MAX_DIRECTIONS) {
+                throw new IOException("Checkpoint is corrupt");
+            }
+            int[] queued = new int[queuedCount];
+            for(int i = 0; i < queuedCount; i++) {
+                queued[i] = in.get();
+            }
+            long length = Varint.read(in);
+            if(length < 1 || length > (long) columns * rows) {
+                throw new IOException("Checkpoint is corrupt");
+            }
+            // Checked up front so a bad file cannot leave the engine half restored.
+            BitSet used = new BitSet(columns * rows);
+            int[] path = new int[(int) length];
+            int cell = (int) Varint.read(in);
+            path[0] = cell;
+            if(cell < 0 || cell >= columns * rows) {
+                throw new IOException("Checkpoint is corrupt");
+            }
+            used.set(cell);
+            int packed = 0;
+            for(int i = 1; i < length; i++) {
+                if(((i - 1) & 3) == 0) {
+                    packed = in.get();
+                }
+                int move = (packed >>> (((i - 1) & 3) << 1)) & 3;
+                int x = cell % columns;
+                if((move == 1 && x == columns - 1) || (move == 3 && x == 0)) {
+                    throw new IOException("Checkpoint is corrupt");
+                }
+                cell += move == 0 ? -columns : move == 1 ? 1 : move == 2 ? columns : -1;
+                if(cell < 0 || cell >= columns * rows || used.get(cell)) {
+                    throw new IOException("Checkpoint is corrupt");
+                }
+                used.set(cell);
+                path[i] = cell;
+            }
+            if(fruit >= columns * rows || (fruit >= 0 && used.get(fruit))) {
+                throw new IOException("Checkpoint is corrupt");
+            }
+            engine.restore(path, path.length, fruit, queued, queuedCount, tick, score, fruitsEaten, nextFruitScore,
+                    (flags & PAUSED) != 0);
+            engine.setRandom(new Random(seed));
+        } catch(BufferUnderflowException e) {
+            throw new IOException("Checkpoint is truncated", e);
+        } catch(IllegalArgumentException e) {
+            throw new IOException("Checkpoint is corrupt: " + e.getMessage(), e);
+        }
+    }
+}
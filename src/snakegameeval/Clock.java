@@ -1,39 +1,81 @@
 package snakegameeval;
 
+/**
+ * Fixed-step scheduler on System.nanoTime(). Leftover time is carried in whole
+ * nanoseconds so the tick rate does not drift, and at most maxCatchUpCycles
+ * are owed at once: after a long stall the backlog beyond that is dropped
+ * rather than replayed as a burst. A clock run faster than real time, such as
+ * a fast-forwarded replay, needs a cap scaled by its speed, or the ticks owed
+ * in a normal frame are dropped too.
+ */
 public class Clock {
-    private float millisPerCycle;
+    public static final int DEFAULT_MAX_CATCH_UP_CYCLES = 5;
+    private volatile long nanosPerCycle;
     private long lastUpdate;
+    private long excessNanos;
     private int elapsedCycles;
-    private float excessCycles;
-    private boolean isPaused;
+    private int maxCatchUpCycles = DEFAULT_MAX_CATCH_UP_CYCLES;
+    private long droppedCycles;
+    // Start of the cycle in progress, for the render thread's interpolation.
+    private volatile long cycleStart;
+    private volatile boolean isPaused;
+
     public Clock(float cyclesPerSecond) {
         setCyclesPerSecond(cyclesPerSecond);
         reset();
     }
+
     public void setCyclesPerSecond(float cyclesPerSecond) {
-        this.millisPerCycle = (1.0f / cyclesPerSecond) * 1000;
+        this.nanosPerCycle = Math.max(1L, Math.round(1e9 / cyclesPerSecond));
     }
+
+    public float getCyclesPerSecond() {
+        return (float) (1e9 / nanosPerCycle);
+    }
+
+    public void setMaxCatchUpCycles(int maxCatchUpCycles) {
+        this.maxCatchUpCycles = Math.max(1, maxCatchUpCycles);
+    }
+
     public void reset() {
         this.elapsedCycles = 0;
-        this.excessCycles = 0.0f;
-        this.lastUpdate = getCurrentTime();
+        this.excessNanos = 0L;
+        this.lastUpdate = System.nanoTime();
+        this.cycleStart = lastUpdate;
         this.isPaused = false;
     }
+
     public void update() {
-        long currUpdate = getCurrentTime();
-        float delta = (float)(currUpdate - lastUpdate) + excessCycles;
+        long now = System.nanoTime();
         if(!isPaused) {
-            this.elapsedCycles += (int)Math.floor(delta / millisPerCycle);
-            this.excessCycles = delta % millisPerCycle;
+            long delta = now - lastUpdate + excessNanos;
+            long cycles = delta / nanosPerCycle;
+            this.excessNanos = delta - cycles * nanosPerCycle;
+            long owed = elapsedCycles + cycles;
+            if(owed > maxCatchUpCycles) {
+                this.droppedCycles += owed - maxCatchUpCycles;
+                owed = maxCatchUpCycles;
+            }
+            this.elapsedCycles = (int) owed;
+            this.cycleStart = now - excessNanos;
         }
-        this.lastUpdate = currUpdate;
+        this.lastUpdate = now;
     }
+
     public void setPaused(boolean paused) {
+        if(paused) {
+            this.elapsedCycles = 0;
+        } else if(isPaused) {
+            this.lastUpdate = System.nanoTime();
+            this.cycleStart = lastUpdate - excessNanos;
+        }
         this.isPaused = paused;
     }
+
     public boolean isPaused() {
         return isPaused;
     }
+
     public boolean hasElapsedCycle() {
         if(elapsedCycles > 0) {
             this.elapsedCycles--;
@@ -41,10 +83,23 @@ public class Clock {
         }
         return false;
     }
+
     public boolean peekElapsedCycle() {
         return (elapsedCycles > 0);
     }
-    private static final long getCurrentTime() {
-        return (System.nanoTime() / 1000000L);
+
+    /**
+     * @return how far the game is into the current cycle, from 0 to 1
+     */
+    public float getInterpolation() {
+        if(isPaused) {
+            return 1.0f;
+        }
+        float alpha = (float) (System.nanoTime() - cycleStart) / nanosPerCycle;
+        return Math.max(0.0f, Math.min(1.0f, alpha));
+    }
+
+    public long getDroppedCycles() {
+        return droppedCycles;
     }
-}
\ No newline at end of file
+}
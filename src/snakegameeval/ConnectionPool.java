@@ -0,0 +1,95 @@
+package snakegameeval;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPool implements AutoCloseable {
+    private static final long BORROW_TIMEOUT_SECONDS = 5;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final BlockingQueue<Connection> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, int maxSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    public Connection borrow() throws SQLException {
+        if(closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        Connection conn = pollOpen();
+        if(conn != null) {
+            return conn;
+        }
+        if(created.incrementAndGet() <= maxSize) {
+            try {
+                return DriverManager.getConnection(url, username, password);
+            } catch(SQLException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        created.decrementAndGet();
+        try {
+            conn = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection", e);
+        }
+        if(conn == null) {
+            throw new SQLException("Timed out waiting for a connection");
+        }
+        return conn;
+    }
+
+    public void release(Connection conn) {
+        if(conn == null) {
+            return;
+        }
+        if(closed || !idle.offer(conn)) {
+            discard(conn);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        Connection conn;
+        while((conn = idle.poll()) != null) {
+            discard(conn);
+        }
+    }
+
+    private Connection pollOpen() throws SQLException {
+        Connection conn;
+        while((conn = idle.poll()) != null) {
+            if(!conn.isClosed()) {
+                return conn;
+            }
+            created.decrementAndGet();
+        }
+        return null;
+    }
+
+    private void discard(Connection conn) {
+        created.decrementAndGet();
+        try {
+            conn.close();
+        } catch(SQLException e) {
+            System.err.println("Failed to close connection: " + e);
+        }
+    }
+}
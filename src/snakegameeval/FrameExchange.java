@@ -0,0 +1,101 @@
+package snakegameeval;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer of FrameSnapshots between the logic thread and one render
+ * thread. The writer fills its back buffer and swaps it into the middle slot
+ * with one atomic exchange; the reader swaps the middle slot for its front
+ * buffer only when a newer frame is there. Neither side locks or allocates.
+ *
+ * Tiles are copied a word at a time from the engine's dirty cells. A buffer
+ * can miss several publishes while the reader holds it, so each buffer keeps
+ * the words changed since it was last written and catches up from those; only
+ * an engine-wide change or an overflowing list costs a full copy. The caller
+ * must publish before every clearDirty() on the engine.
+ */
+public class FrameExchange {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+    private static final int STALE_CAPACITY = 512;
+    private final SnakeEngine engine;
+    private final boolean withTiles;
+    private final FrameSnapshot[] buffers = new FrameSnapshot[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // Per buffer, the tile words changed since it was last written; logic thread only.
+    private final int[][] staleWords = new int[3][STALE_CAPACITY];
+    private final int[] staleCounts = new int[3];
+    private final boolean[] staleAll = new boolean[3];
+    private int back = 0;
+    private int front = 2;
+    private long publishedTick = -1L;
+    private int publishedState = -1;
+
+    public FrameExchange(SnakeEngine engine, boolean withTiles) {
+        this.engine = engine;
+        this.withTiles = withTiles;
+        for(int i = 0; i < buffers.length; i++) {
+            buffers[i] = new FrameSnapshot(engine, withTiles);
+            buffers[i].capture(engine);
+        }
+    }
+
+    /**
+     * Publishes the engine state if it changed since the last publish. Logic thread only.
+     *
+     * @return true if a new snapshot was published
+     */
+    public boolean publish() {
+        int state = (engine.isNewGame() ? 1 : 0) | (engine.isGameOver() ? 2 : 0) | (engine.isPaused() ? 4 : 0);
+        if(engine.getTick() == publishedTick && state == publishedState && !engine.isAllDirty()
+                && engine.getDirtyCount() == 0) {
+            return false;
+        }
+        this.publishedTick = engine.getTick();
+        this.publishedState = state;
+        if(withTiles) {
+            markStale();
+            if(staleAll[back]) {
+                buffers[back].capture(engine);
+            } else {
+                buffers[back].captureWords(engine, staleWords[back], staleCounts[back]);
+            }
+            staleAll[back] = false;
+            staleCounts[back] = 0;
+        } else {
+            buffers[back].capture(engine);
+        }
+        this.back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+        return true;
+    }
+
+    private void markStale() {
+        boolean all = engine.isAllDirty();
+        int count = engine.getDirtyCount();
+        for(int i = 0; i < buffers.length; i++) {
+            if(staleAll[i]) {
+                continue;
+            }
+            if(all || staleCounts[i] + count > STALE_CAPACITY) {
+                staleAll[i] = true;
+                continue;
+            }
+            int[] words = staleWords[i];
+            int stale = staleCounts[i];
+            for(int j = 0; j < count; j++) {
+                words[stale++] = engine.getDirtyCell(j) >>> 5;
+            }
+            staleCounts[i] = stale;
+        }
+    }
+
+    /**
+     * @return the newest published snapshot, valid until the next call. Render thread only.
+     */
+    public FrameSnapshot latest() {
+        if((middle.get() & FRESH) != 0) {
+            this.front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return buffers[front];
+    }
+}
@@ -0,0 +1,123 @@
+package snakegameeval;
+
+/**
+ * A copy of the engine state a renderer needs for one frame. Only the
+ * FrameExchange that owns it writes to it, and only while no reader holds it.
+ */
+public final class FrameSnapshot {
+    private final long[] tiles;
+    private final int columnCount;
+    private final int rowCount;
+    private long tick;
+    private int length;
+    private int headCell;
+    private int neckCell;
+    private Direction direction;
+    private int score;
+    private int fruitsEaten;
+    private int nextFruitScore;
+    private boolean isNewGame;
+    private boolean isGameOver;
+    private boolean isPaused;
+
+    FrameSnapshot(SnakeEngine engine, boolean withTiles) {
+        this.tiles = withTiles ? new long[engine.getTileWordCount()] : null;
+        this.columnCount = engine.getColumnCount();
+        this.rowCount = engine.getRowCount();
+    }
+
+    void capture(SnakeEngine engine) {
+        if(tiles != null) {
+            engine.copyTiles(tiles);
+        }
+        captureState(engine);
+    }
+
+    /**
+     * Like capture, but copies only the listed tile words.
+     */
+    void captureWords(SnakeEngine engine, int[] words, int count) {
+        for(int i = 0; i < count; i++) {
+            engine.copyTileWord(tiles, words[i]);
+        }
+        captureState(engine);
+    }
+
+    private void captureState(SnakeEngine engine) {
+        this.tick = engine.getTick();
+        this.length = engine.getLength();
+        this.headCell = length > 0 ? engine.getBodyCell(0) : -1;
+        this.neckCell = length > 1 ? engine.getBodyCell(1) : -1;
+        this.direction = engine.getDirection();
+        this.score = engine.getScore();
+        this.fruitsEaten = engine.getFruitsEaten();
+        this.nextFruitScore = engine.getNextFruitScore();
+        this.isNewGame = engine.isNewGame();
+        this.isGameOver = engine.isGameOver();
+        this.isPaused = engine.isPaused();
+    }
+
+    public TileType getTile(int x, int y) {
+        return SnakeEngine.decodeTile(SnakeEngine.tileAt(tiles, y * columnCount + x));
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getHeadCell() {
+        return headCell;
+    }
+
+    public int getNeckCell() {
+        return neckCell;
+    }
+
+    public int getHeadX() {
+        return headCell < 0 ? columnCount / 2 : headCell % columnCount;
+    }
+
+    public int getHeadY() {
+        return headCell < 0 ? rowCount / 2 : headCell / columnCount;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getFruitsEaten() {
+        return fruitsEaten;
+    }
+
+    public int getNextFruitScore() {
+        return nextFruitScore;
+    }
+
+    public boolean isNewGame() {
+        return isNewGame;
+    }
+
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    public boolean isPaused() {
+        return isPaused;
+    }
+}
@@ -0,0 +1,80 @@
+package snakegameeval;
+
+/**
+ * One slot of the GameEventBus ring. Slots are reused, so handlers must copy
+ * anything they keep beyond onEvent.
+ */
+public class GameEvent {
+    private GameEventType type;
+    private long tick;
+    private int score;
+    private int fruitsEaten;
+    private int length;
+    private Direction direction;
+    private int headCell;
+    private int fruitCell;
+    private boolean gameOver;
+    private long timeMillis;
+
+    void set(GameEventType type, SnakeEngine engine, Direction direction) {
+        this.type = type;
+        this.tick = engine.getTick();
+        this.score = engine.getScore();
+        this.fruitsEaten = engine.getFruitsEaten();
+        this.length = engine.getLength();
+        this.direction = direction;
+        this.headCell = engine.getBodyCell(0);
+        this.fruitCell = engine.getFruitCell();
+        this.gameOver = engine.isGameOver();
+        this.timeMillis = System.currentTimeMillis();
+    }
+
+    public GameEventType getType() {
+        return type;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getFruitsEaten() {
+        return fruitsEaten;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the direction accepted for DirectionChanged, otherwise the heading
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public int getHeadCell() {
+        return headCell;
+    }
+
+    /**
+     * @return the fruit on the board after the event, or -1 if the board is full
+     */
+    public int getFruitCell() {
+        return fruitCell;
+    }
+
+    /**
+     * @return true once the snake has died, including on the tick that killed it
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
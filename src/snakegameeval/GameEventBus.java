@@ -0,0 +1,147 @@
+package snakegameeval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer ring buffer of preallocated GameEvents. The logic thread
+ * fills the next slot and publishes it with one ordered store; each handler
+ * runs on its own thread, follows the cursor with its own sequence and takes
+ * every event published since it last looked as one batch. Publishing costs
+ * the same however many handlers there are, and only waits if the slowest
+ * handler is a whole ring behind.
+ */
+public class GameEventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long PARK_NANOS = 1000000L;
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000L;
+    private final GameEvent[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1L);
+    private final List<Consumer> consumers = new ArrayList<>();
+    private long nextSequence;
+    // Lowest handler sequence seen last time the producer had to check.
+    private long cachedGate = -1L;
+    private boolean started;
+    private volatile boolean running = true;
+
+    public GameEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public GameEventBus(int capacity) {
+        if(capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new GameEvent[capacity];
+        this.mask = capacity - 1;
+        for(int i = 0; i < capacity; i++) {
+            ring[i] = new GameEvent();
+        }
+    }
+
+    public synchronized void addHandler(String name, GameEventHandler handler) {
+        if(started) {
+            throw new IllegalStateException("Handlers must be added before the bus starts");
+        }
+        consumers.add(new Consumer(name, handler));
+    }
+
+    public synchronized void start() {
+        this.started = true;
+        for(Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    public void publish(GameEventType type, SnakeEngine engine) {
+        publish(type, engine, engine.getDirection());
+    }
+
+    /**
+     * Only the logic thread may publish.
+     */
+    public void publish(GameEventType type, SnakeEngine engine, Direction direction) {
+        long sequence = nextSequence;
+        long wrapPoint = sequence - ring.length;
+        if(wrapPoint > cachedGate) {
+            long gate;
+            while(wrapPoint > (gate = minimumSequence(sequence - 1))) {
+                LockSupport.parkNanos(1000L);
+            }
+            this.cachedGate = gate;
+        }
+        ring[(int) (sequence & mask)].set(type, engine, direction);
+        this.nextSequence = sequence + 1;
+        cursor.lazySet(sequence);
+    }
+
+    private long minimumSequence(long minimum) {
+        for(Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Lets the handlers finish every published event, then stops them.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        for(Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+            try {
+                consumer.thread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class Consumer implements Runnable {
+        private final GameEventHandler handler;
+        private final AtomicLong sequence = new AtomicLong(-1L);
+        private final Thread thread;
+
+        Consumer(String name, GameEventHandler handler) {
+            this.handler = handler;
+            this.thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while(true) {
+                long available = cursor.get();
+                if(available >= next) {
+                    for(long s = next; s <= available; s++) {
+                        try {
+                            handler.onEvent(ring[(int) (s & mask)], s, s == available);
+                        } catch(RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    sequence.lazySet(available);
+                    next = available + 1;
+                    idle = 0;
+                } else if(!running) {
+                    return;
+                } else if(++idle < SPINS_BEFORE_PARKING) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+    }
+}
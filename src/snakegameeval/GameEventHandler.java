@@ -0,0 +1,10 @@
+package snakegameeval;
+
+@FunctionalInterface
+public interface GameEventHandler {
+    /**
+     * @param endOfBatch true for the last event currently available, a good
+     *                   point to flush whatever the handler batches
+     */
+    void onEvent(GameEvent event, long sequence, boolean endOfBatch);
+}
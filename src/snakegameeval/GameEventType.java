@@ -0,0 +1,13 @@
+package snakegameeval;
+
+public enum GameEventType {
+    GameStarted,
+    Tick,
+    FruitEaten,
+    Death,
+    Paused,
+    Resumed,
+    DirectionChanged,
+    // A checkpoint replaced the game in progress.
+    Restored
+}
@@ -0,0 +1,302 @@
+package snakegameeval;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.NotificationEmitter;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Game loop and paint instrumentation, enabled with -Dsnake.metrics=true.
+ * ENABLED is a compile-time-style constant, so every call site guarded by it
+ * is removed by the JIT when metrics are off.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("snake.metrics");
+    private static final GameMetrics INSTANCE = ENABLED ? new GameMetrics() : null;
+    private final Histogram tickNanos = new Histogram();
+    private final Histogram boardPaintNanos = new Histogram();
+    private final Histogram sidePaintNanos = new Histogram();
+    // Time between presented frames of the active-rendering canvas.
+    private final Histogram canvasFrameNanos = new Histogram();
+    private final Histogram inputToMovementNanos = new Histogram();
+    private final Histogram autopilotPlanNanos = new Histogram();
+    private final Histogram gcPauseNanos = new Histogram();
+    private final Histogram allocatedBytesPerTick = new Histogram();
+    private final AtomicLong frameCount = new AtomicLong();
+    private final AtomicLong lateFrames = new AtomicLong();
+    private volatile long firstFrameNanosAfterLaunch;
+    private volatile long firstFrameNanosAfterLogin;
+    private volatile long checkpointBytes;
+    private volatile long checkpointEncodeNanos;
+    private volatile long checkpointWriteNanos;
+    private volatile long checkpointLoadNanos;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // Keyboard directions the engine accepted but has not moved in yet; logic thread only.
+    private final int[] pendingDirections = new int[SnakeEngine.MAX_DIRECTIONS];
+    private final long[] pendingTimestamps = new long[SnakeEngine.MAX_DIRECTIONS];
+    private int pendingHead;
+    private int pendingCount;
+    private boolean started;
+
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if(started) {
+            return;
+        }
+        this.started = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("snakegameeval:type=GameMetrics"));
+        } catch(JMException e) {
+            e.printStackTrace();
+        }
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if(collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                        return;
+                    }
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    // Concurrent cycles run alongside the game and are not pauses.
+                    if(!info.getGcAction().contains("concurrent") && !info.getGcName().contains("Concurrent")) {
+                        gcPauseNanos.record(info.getGcInfo().getDuration() * 1000000L);
+                    }
+                }, null, null);
+            }
+        }
+    }
+
+    public long allocatedBytes() {
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    public void recordTick(long nanos, long allocatedBytes) {
+        tickNanos.record(nanos);
+        allocatedBytesPerTick.record(allocatedBytes);
+    }
+
+    public void recordFrame(long nanos, long budgetNanos) {
+        frameCount.incrementAndGet();
+        if(nanos > budgetNanos) {
+            lateFrames.incrementAndGet();
+        }
+    }
+
+    public void recordBoardPaint(long nanos) {
+        boardPaintNanos.record(nanos);
+    }
+
+    public void recordSidePaint(long nanos) {
+        sidePaintNanos.record(nanos);
+    }
+
+    public void recordFirstFrame(long nanosAfterLaunch, long nanosAfterLogin) {
+        this.firstFrameNanosAfterLaunch = nanosAfterLaunch;
+        this.firstFrameNanosAfterLogin = nanosAfterLogin;
+    }
+
+    public void recordCheckpointSave(long bytes, long encodeNanos, long writeNanos) {
+        this.checkpointBytes = bytes;
+        this.checkpointEncodeNanos = encodeNanos;
+        this.checkpointWriteNanos = writeNanos;
+    }
+
+    public void recordCheckpointLoad(long nanos) {
+        this.checkpointLoadNanos = nanos;
+    }
+
+    public void recordCanvasFrame(long nanos) {
+        canvasFrameNanos.record(nanos);
+    }
+
+    public void recordAutopilotPlan(long nanos) {
+        autopilotPlanNanos.record(nanos);
+    }
+
+    public void directionAccepted(Direction direction, long timestamp) {
+        if(pendingCount < pendingDirections.length) {
+            int slot = (pendingHead + pendingCount++) % pendingDirections.length;
+            pendingDirections[slot] = direction.ordinal();
+            pendingTimestamps[slot] = timestamp;
+        }
+    }
+
+    /**
+     * Called just before the engine steps; a pending direction that is now at
+     * the head of the engine's queue is the one the snake is about to move in.
+     */
+    public void beforeStep(Direction current) {
+        if(pendingCount > 0 && current != null && pendingDirections[pendingHead] == current.ordinal()) {
+            inputToMovementNanos.record(System.nanoTime() - pendingTimestamps[pendingHead]);
+            pendingHead = (pendingHead + 1) % pendingDirections.length;
+            pendingCount--;
+        }
+    }
+
+    public void clearPendingInput() {
+        this.pendingHead = 0;
+        this.pendingCount = 0;
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickNanos.getCount();
+    }
+
+    @Override
+    public double getTickMicrosP50() {
+        return tickNanos.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getTickMicrosP99() {
+        return tickNanos.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getTickMicrosMax() {
+        return tickNanos.getMax() / 1e3;
+    }
+
+    @Override
+    public double getBoardPaintMicrosP50() {
+        return boardPaintNanos.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getBoardPaintMicrosP99() {
+        return boardPaintNanos.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getSidePaintMicrosP50() {
+        return sidePaintNanos.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getSidePaintMicrosP99() {
+        return sidePaintNanos.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public long getFirstFrameMillisAfterLaunch() {
+        return firstFrameNanosAfterLaunch / 1000000L;
+    }
+
+    @Override
+    public long getFirstFrameMillisAfterLogin() {
+        return firstFrameNanosAfterLogin / 1000000L;
+    }
+
+    @Override
+    public long getLastCheckpointBytes() {
+        return checkpointBytes;
+    }
+
+    @Override
+    public double getLastCheckpointEncodeMicros() {
+        return checkpointEncodeNanos / 1e3;
+    }
+
+    @Override
+    public double getLastCheckpointWriteMicros() {
+        return checkpointWriteNanos / 1e3;
+    }
+
+    @Override
+    public double getLastCheckpointLoadMicros() {
+        return checkpointLoadNanos / 1e3;
+    }
+
+    @Override
+    public double getCanvasFrameMillisP50() {
+        return canvasFrameNanos.getValueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getCanvasFrameMillisP95() {
+        return canvasFrameNanos.getValueAtPercentile(95) / 1e6;
+    }
+
+    @Override
+    public double getCanvasFrameMillisP99() {
+        return canvasFrameNanos.getValueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount.get();
+    }
+
+    @Override
+    public long getLateFrames() {
+        return lateFrames.get();
+    }
+
+    @Override
+    public double getInputToMovementMillisP50() {
+        return inputToMovementNanos.getValueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getInputToMovementMillisP99() {
+        return inputToMovementNanos.getValueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getAutopilotPlanMicrosMean() {
+        return autopilotPlanNanos.getMean() / 1e3;
+    }
+
+    @Override
+    public double getAutopilotPlanMicrosP99() {
+        return autopilotPlanNanos.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getAutopilotPlanMicrosMax() {
+        return autopilotPlanNanos.getMax() / 1e3;
+    }
+
+    @Override
+    public long getGcPauseCount() {
+        return gcPauseNanos.getCount();
+    }
+
+    @Override
+    public double getGcPauseMillisMax() {
+        return gcPauseNanos.getMax() / 1e6;
+    }
+
+    @Override
+    public double getAllocatedBytesPerTickP50() {
+        return allocatedBytesPerTick.getValueAtPercentile(50);
+    }
+
+    @Override
+    public double getAllocatedBytesPerTickP99() {
+        return allocatedBytesPerTick.getValueAtPercentile(99);
+    }
+
+    @Override
+    public void reset() {
+        tickNanos.reset();
+        boardPaintNanos.reset();
+        sidePaintNanos.reset();
+        canvasFrameNanos.reset();
+        inputToMovementNanos.reset();
+        autopilotPlanNanos.reset();
+        gcPauseNanos.reset();
+        allocatedBytesPerTick.reset();
+        frameCount.set(0);
+        lateFrames.set(0);
+    }
+}
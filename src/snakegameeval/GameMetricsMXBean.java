@@ -0,0 +1,61 @@
+package snakegameeval;
+
+public interface GameMetricsMXBean {
+    long getTickCount();
+
+    double getTickMicrosP50();
+
+    double getTickMicrosP99();
+
+    double getTickMicrosMax();
+
+    double getBoardPaintMicrosP50();
+
+    double getBoardPaintMicrosP99();
+
+    double getSidePaintMicrosP50();
+
+    double getSidePaintMicrosP99();
+
+    long getFirstFrameMillisAfterLaunch();
+
+    long getFirstFrameMillisAfterLogin();
+
+    long getLastCheckpointBytes();
+
+    double getLastCheckpointEncodeMicros();
+
+    double getLastCheckpointWriteMicros();
+
+    double getLastCheckpointLoadMicros();
+
+    double getCanvasFrameMillisP50();
+
+    double getCanvasFrameMillisP95();
+
+    double getCanvasFrameMillisP99();
+
+    long getFrameCount();
+
+    long getLateFrames();
+
+    double getInputToMovementMillisP50();
+
+    double getInputToMovementMillisP99();
+
+    double getAutopilotPlanMicrosMean();
+
+    double getAutopilotPlanMicrosP99();
+
+    double getAutopilotPlanMicrosMax();
+
+    long getGcPauseCount();
+
+    double getGcPauseMillisMax();
+
+    double getAllocatedBytesPerTickP50();
+
+    double getAllocatedBytesPerTickP99();
+
+    void reset();
+}
@@ -0,0 +1,37 @@
+package snakegameeval;
+
+public class GameResult {
+    private final String username;
+    private final int score;
+    private final int fruitsEaten;
+    private final int length;
+    private final long playedAt;
+
+    public GameResult(String username, int score, int fruitsEaten, int length, long playedAt) {
+        this.username = username;
+        this.score = score;
+        this.fruitsEaten = fruitsEaten;
+        this.length = length;
+        this.playedAt = playedAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getFruitsEaten() {
+        return fruitsEaten;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getPlayedAt() {
+        return playedAt;
+    }
+}
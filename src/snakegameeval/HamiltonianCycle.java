@@ -0,0 +1,62 @@
+package snakegameeval;
+
+import java.util.Arrays;
+
+/**
+ * A fixed Hamiltonian cycle over the largest even-sized sub-grid of a board:
+ * a column-wise serpentine with row 0 as the way back. Cells outside the
+ * sub-grid (the last column or row of an odd board) have no direction.
+ */
+public class HamiltonianCycle {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private final int columnCount;
+    private final int rowCount;
+    private final byte[] directions;
+
+    public HamiltonianCycle(int columnCount, int rowCount) {
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        int width = columnCount & ~1;
+        int height = rowCount & ~1;
+        this.directions = new byte[columnCount * rowCount];
+        Arrays.fill(directions, (byte) -1);
+        // Mirror it when needed so the start cell, which the snake always leaves
+        // heading North, lies on a northbound column.
+        boolean mirrored = (columnCount / 2) % 2 == 0;
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                int cx = mirrored ? width - 1 - x : x;
+                Direction direction;
+                if(y == 0) {
+                    direction = cx == 0 ? Direction.South : Direction.West;
+                } else if(cx % 2 == 0) {
+                    direction = y == height - 1 ? Direction.East : Direction.South;
+                } else {
+                    direction = y == 1 && cx != width - 1 ? Direction.East : Direction.North;
+                }
+                if(mirrored && direction == Direction.East) {
+                    direction = Direction.West;
+                } else if(mirrored && direction == Direction.West) {
+                    direction = Direction.East;
+                }
+                directions[y * columnCount + x] = (byte) direction.ordinal();
+            }
+        }
+    }
+
+    public Direction get(int x, int y) {
+        if(x < 0 || x >= columnCount || y < 0 || y >= rowCount) {
+            return null;
+        }
+        int direction = directions[y * columnCount + x];
+        return direction < 0 ? null : DIRECTIONS[direction];
+    }
+
+    public int length() {
+        return length(columnCount, rowCount);
+    }
+
+    public static int length(int columnCount, int rowCount) {
+        return (columnCount & ~1) * (rowCount & ~1);
+    }
+}
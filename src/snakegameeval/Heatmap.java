@@ -0,0 +1,122 @@
+package snakegameeval;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Per-cell visit, death and fruit-eaten counters kept in a memory-mapped file,
+ * so they add up across sessions and take the same space after a million
+ * games as after one. Counting runs as a GameEventHandler on the event bus
+ * thread, the only writer; renderers read the counters directly.
+ *
+ * <pre>
+ * "SNKH" version(4) columns(4) rows(4) games(8) reserved(16)
+ * visits[cells] deaths[cells] fruit[cells]   (longs)
+ * </pre>
+ */
+public class Heatmap implements GameEventHandler, AutoCloseable {
+    public static final int VISITS = 0;
+    public static final int DEATHS = 1;
+    public static final int FRUIT = 2;
+    public static final int LAYER_COUNT = 3;
+    private static final int MAGIC = 0x534E4B48;
+    private static final int VERSION = 1;
+    private static final int GAMES_OFFSET = 16;
+    private static final int HEADER_SIZE = 40;
+    private final int columnCount;
+    private final int rowCount;
+    private final int cellCount;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final LongBuffer counters;
+
+    public Heatmap(Path path, int columnCount, int rowCount) throws IOException {
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.cellCount = columnCount * rowCount;
+        long size = HEADER_SIZE + (long) LAYER_COUNT * cellCount * Long.BYTES;
+        if(size > Integer.MAX_VALUE) {
+            throw new IOException("Board too large for a heatmap: " + columnCount + "x" + rowCount);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long existing = channel.size();
+            if(existing != 0 && existing != size) {
+                throw new IOException("Heatmap " + path + " is " + existing + " bytes, expected " + size);
+            }
+            this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if(existing == 0) {
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                map.putInt(8, columnCount);
+                map.putInt(12, rowCount);
+            } else if(map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+                    || map.getInt(8) != columnCount || map.getInt(12) != rowCount) {
+                throw new IOException("Heatmap " + path + " is not for a " + columnCount + "x" + rowCount + " board");
+            }
+            this.counters = map.duplicate().position(HEADER_SIZE).slice().asLongBuffer();
+        } catch(IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onEvent(GameEvent event, long sequence, boolean endOfBatch) {
+        switch(event.getType()) {
+            case Tick:
+                // The fatal tick does not move the head; Death counts that cell.
+                if(!event.isGameOver()) {
+                    increment(VISITS, event.getHeadCell());
+                }
+                break;
+            case FruitEaten:
+                increment(FRUIT, event.getHeadCell());
+                break;
+            case Death:
+                increment(DEATHS, event.getHeadCell());
+                map.putLong(GAMES_OFFSET, map.getLong(GAMES_OFFSET) + 1);
+                break;
+        }
+    }
+
+    private void increment(int layer, int cell) {
+        if(cell >= 0 && cell < cellCount) {
+            int index = layer * cellCount + cell;
+            counters.put(index, counters.get(index) + 1);
+        }
+    }
+
+    public long get(int layer, int cell) {
+        return counters.get(layer * cellCount + cell);
+    }
+
+    public long getGames() {
+        return map.getLong(GAMES_OFFSET);
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Flushes the counters to disk. The event bus must be closed first.
+     */
+    @Override
+    public void close() {
+        try {
+            map.force();
+            channel.close();
+        } catch(IOException e) {
+            System.err.println("Failed to close heatmap: " + e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package snakegameeval;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer/single-consumer ring of timestamped input commands. The EDT
+ * offers, the logic thread polls; neither side takes a lock.
+ */
+public class InputQueue {
+    public static final int EMPTY = -1;
+    public static final int PAUSE = 4;
+    public static final int START = 5;
+    public static final int EXIT = 6;
+    public static final int AUTOPILOT = 7;
+    public static final int SAVE = 8;
+    public static final int LOAD = 9;
+    private static final int CAPACITY = 16;
+    private static final int MASK = CAPACITY - 1;
+    private final int[] commands = new int[CAPACITY];
+    private final long[] timestamps = new long[CAPACITY];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long polledTimestamp;
+
+    public boolean offerDirection(Direction direction) {
+        return offer(direction.ordinal());
+    }
+
+    public boolean offer(int command) {
+        long t = tail.get();
+        if(t - head.getAcquire() >= CAPACITY) {
+            return false;
+        }
+        int slot = (int) t & MASK;
+        commands[slot] = command;
+        timestamps[slot] = System.nanoTime();
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    public int poll() {
+        long h = head.get();
+        if(h >= tail.getAcquire()) {
+            return EMPTY;
+        }
+        int slot = (int) h & MASK;
+        int command = commands[slot];
+        this.polledTimestamp = timestamps[slot];
+        head.setRelease(h + 1);
+        return command;
+    }
+
+    public long getPolledTimestamp() {
+        return polledTimestamp;
+    }
+}
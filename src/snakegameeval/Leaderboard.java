@@ -0,0 +1,110 @@
+package snakegameeval;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory leaderboard of each player's best game. Renderers read the
+ * published top-N array and the per-player map without touching the store.
+ */
+public class Leaderboard {
+    public static final int DEFAULT_SIZE = 10;
+    private static final Comparator<GameResult> RANKING = Comparator
+            .comparingInt(GameResult::getScore).reversed()
+            .thenComparingLong(GameResult::getPlayedAt);
+    private static final GameResult[] EMPTY = new GameResult[0];
+    private final int size;
+    private final Map<String, GameResult> best = new ConcurrentHashMap<>();
+    private volatile GameResult[] top = EMPTY;
+    private volatile int version;
+
+    public Leaderboard() {
+        this(DEFAULT_SIZE);
+    }
+
+    public Leaderboard(int size) {
+        this.size = size;
+    }
+
+    public synchronized void load(List<GameResult> results) {
+        for(GameResult result : results) {
+            best.merge(result.getUsername(), result, Leaderboard::better);
+        }
+        PriorityQueue<GameResult> heap = new PriorityQueue<>(size + 1, RANKING.reversed());
+        for(GameResult result : best.values()) {
+            heap.offer(result);
+            if(heap.size() > size) {
+                heap.poll();
+            }
+        }
+        GameResult[] ranked = heap.toArray(EMPTY);
+        Arrays.sort(ranked, RANKING);
+        this.top = ranked;
+        this.version++;
+    }
+
+    public synchronized boolean record(GameResult result) {
+        GameResult previous = best.get(result.getUsername());
+        if(previous != null && better(previous, result) == previous) {
+            return false;
+        }
+        best.put(result.getUsername(), result);
+        GameResult[] current = top;
+        if(current.length == size && previous == null && RANKING.compare(result, current[size - 1]) >= 0) {
+            this.version++;
+            return true;
+        }
+        GameResult[] ranked = new GameResult[Math.min(size, current.length + (previous == null ? 1 : 0))];
+        int count = 0;
+        boolean placed = false;
+        for(GameResult entry : current) {
+            if(entry.getUsername().equals(result.getUsername())) {
+                continue;
+            }
+            if(!placed && RANKING.compare(result, entry) < 0) {
+                ranked[count++] = result;
+                placed = true;
+                if(count == ranked.length) {
+                    break;
+                }
+            }
+            ranked[count++] = entry;
+            if(count == ranked.length) {
+                break;
+            }
+        }
+        if(!placed && count < ranked.length) {
+            ranked[count++] = result;
+        }
+        this.top = count == ranked.length ? ranked : Arrays.copyOf(ranked, count);
+        this.version++;
+        return true;
+    }
+
+    /**
+     * @return a stamp that changes whenever a player's best or the top list changes
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public GameResult[] getTop() {
+        return top;
+    }
+
+    public GameResult getBest(String username) {
+        return best.get(username);
+    }
+
+    public int getPlayerCount() {
+        return best.size();
+    }
+
+    private static GameResult better(GameResult a, GameResult b) {
+        return RANKING.compare(b, a) < 0 ? b : a;
+    }
+}
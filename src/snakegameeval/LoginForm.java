@@ -2,17 +2,42 @@ package snakegameeval;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.*;
 
+/**
+ * Checks credentials against the login table of the score database. The
+ * lookup runs on a background thread, so a slow database never blocks the
+ * EDT; the buttons are disabled until it answers.
+ */
 public class LoginForm extends JFrame {
     private static final long serialVersionUID = 1L;
+    private static final ExecutorService CHECKS = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Login");
+        thread.setDaemon(true);
+        return thread;
+    });
     private JTextField usernameField;
     private JPasswordField passwordField;
     private JButton loginButton;
-    private boolean authenticated;
+    private JButton registerButton;
+    private final CompletableFuture<String> login;
+    private final ScoreStore users;
+    private volatile boolean authenticated;
+    private volatile String username;
 
     public LoginForm() {
+        this(new CompletableFuture<>(), ScoreStore.fromSystemProperties());
+    }
+
+    public LoginForm(CompletableFuture<String> login, ScoreStore users) {
         super("Login");
+        this.login = login;
+        this.users = users;
 
         setLayout(new GridLayout(3, 2));
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -22,23 +47,30 @@ public class LoginForm extends JFrame {
         JLabel passwordLabel = new JLabel("Password: ");
         passwordField = new JPasswordField();
         loginButton = new JButton("Login");
+        registerButton = new JButton("Register");
         add(usernameLabel);
         add(usernameField);
         add(passwordLabel);
         add(passwordField);
-        add(new JLabel());
+        add(registerButton);
         add(loginButton);
         loginButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                login();
+                login(false);
+            }
+        });
+        registerButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                login(true);
             }
         });
         loginButton.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    login();
+                    login(false);
                 }
             }
         });
@@ -46,7 +78,7 @@ public class LoginForm extends JFrame {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    login();
+                    login(false);
                 }
             }
         });
@@ -56,25 +88,62 @@ public class LoginForm extends JFrame {
         setVisible(true);
     }
 
-    private void login() {
+    private void login(boolean register) {
         String username = usernameField.getText();
         String password = new String(passwordField.getPassword());
-        if (authenticate(username, password)) {
-            authenticated = true;
-            dispose();
-        } else {
-            JOptionPane.showMessageDialog(LoginForm.this, "Invalid username or password", "Error", JOptionPane.ERROR_MESSAGE);
+        if (username.isEmpty() || password.isEmpty()) {
+            showError("Enter a username and password");
+            return;
         }
+        setButtonsEnabled(false);
+        CompletableFuture.supplyAsync(() -> check(username, password, register), CHECKS)
+                .whenComplete((accepted, error) -> SwingUtilities.invokeLater(() -> {
+                    setButtonsEnabled(true);
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        showError("Could not reach the user database: " + cause.getMessage());
+                    } else if (accepted) {
+                        this.username = username;
+                        authenticated = true;
+                        dispose();
+                        login.complete(username);
+                    } else {
+                        showError(register ? "Username " + username + " is already taken" : "Invalid username or password");
+                    }
+                }));
     }
 
-    private boolean authenticate(String username, String password) {
-        return "Fatima".equals(username) && "7211".equals(password);
+    private boolean check(String username, String password, boolean register) {
+        try {
+            // The score writer creates the tables too, but a fast first login can beat it.
+            users.createSchema();
+            return register ? users.addUser(username, password) : users.authenticate(username, password);
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void setButtonsEnabled(boolean enabled) {
+        loginButton.setEnabled(enabled);
+        registerButton.setEnabled(enabled);
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(LoginForm.this, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     public boolean isAuthenticated() {
         return authenticated;
     }
 
+    public CompletableFuture<String> getLogin() {
+        return login;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
     public static void main(String[] args) {
         new LoginForm();
     }
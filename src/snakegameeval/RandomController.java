@@ -0,0 +1,62 @@
+package snakegameeval;
+
+import java.util.SplittableRandom;
+
+/**
+ * Turns at random, avoiding walls and body tiles when it can. A queued
+ * direction takes effect one tick late, so moves are judged from the cell the
+ * head enters next.
+ */
+public class RandomController implements SnakeController {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private final SplittableRandom random;
+    private final double turnChance;
+
+    public RandomController(SplittableRandom random) {
+        this(random, 0.2);
+    }
+
+    public RandomController(SplittableRandom random, double turnChance) {
+        this.random = random;
+        this.turnChance = turnChance;
+    }
+
+    @Override
+    public Direction nextDirection(SnakeEngine engine) {
+        Direction current = engine.getDirection();
+        if(current == null) {
+            return null;
+        }
+        int x = engine.getHeadX() + dx(current);
+        int y = engine.getHeadY() + dy(current);
+        if(isSafe(engine, x + dx(current), y + dy(current)) && random.nextDouble() >= turnChance) {
+            return null;
+        }
+        // Reversing is rejected by the engine, so only the two perpendicular turns are worth trying.
+        int axis = (current.ordinal() + 1) & 1;
+        int first = random.nextInt(2);
+        for(int i = 0; i < 2; i++) {
+            Direction direction = DIRECTIONS[axis + 2 * ((first + i) & 1)];
+            if(isSafe(engine, x + dx(direction), y + dy(direction))) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    private static int dx(Direction direction) {
+        return direction == Direction.East ? 1 : direction == Direction.West ? -1 : 0;
+    }
+
+    private static int dy(Direction direction) {
+        return direction == Direction.South ? 1 : direction == Direction.North ? -1 : 0;
+    }
+
+    private static boolean isSafe(SnakeEngine engine, int x, int y) {
+        if(x < 0 || x >= engine.getColumnCount() || y < 0 || y >= engine.getRowCount()) {
+            return false;
+        }
+        TileType tile = engine.getTile(x, y);
+        return tile != TileType.SnakeBody && tile != TileType.SnakeHead;
+    }
+}
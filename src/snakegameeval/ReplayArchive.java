@@ -0,0 +1,149 @@
+package snakegameeval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file of recorded games: a magic/version header followed by
+ * varint-length-prefixed game records. Reading maps the file in segments,
+ * so archives larger than a single mapping are fine.
+ */
+public class ReplayArchive implements AutoCloseable {
+    private static final byte[] MAGIC = {'S', 'N', 'K', 'A'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final long SEGMENT_SIZE = 256L * 1024 * 1024;
+    private final Path path;
+    private final ExecutorService writer;
+
+    public ReplayArchive(Path path) {
+        this.path = path;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Replay Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void appendAsync(ReplayRecorder recorder) {
+        byte[] record = recorder.toByteArray();
+        writer.execute(() -> {
+            try {
+                append(record);
+            } catch(IOException e) {
+                System.err.println("Failed to save replay: " + e);
+            }
+        });
+    }
+
+    public synchronized void append(byte[] record) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            boolean empty = channel.size() == 0;
+            ByteBuffer buffer = ByteBuffer.allocate((empty ? HEADER_SIZE : 0) + Varint.MAX_SIZE + record.length);
+            if(empty) {
+                buffer.put(MAGIC).put((byte) VERSION);
+            }
+            Varint.write(buffer, record.length);
+            buffer.put(record).flip();
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static ReplayPlayer readGame(Path path, int index) throws IOException {
+        ReplayPlayer[] found = new ReplayPlayer[1];
+        int[] count = new int[1];
+        forEachGame(path, replay -> {
+            if(count[0]++ == index) {
+                found[0] = replay;
+            }
+        });
+        if(found[0] == null) {
+            throw new IOException("Replay archive " + path + " has " + count[0] + " games, no game " + index);
+        }
+        return found[0];
+    }
+
+    public static long forEachGame(Path path, Consumer<ReplayPlayer> action) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            }
+            header.flip();
+            for(byte b : MAGIC) {
+                if(!header.hasRemaining() || header.get() != b) {
+                    throw new IOException(path + " is not a replay archive");
+                }
+            }
+            if(!header.hasRemaining() || header.get() != VERSION) {
+                throw new IOException("Unsupported replay archive version in " + path);
+            }
+            long games = 0;
+            long position = HEADER_SIZE;
+            while(position < fileSize) {
+                long windowSize = Math.min(SEGMENT_SIZE, fileSize - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int consumed = 0;
+                while(window.hasRemaining()) {
+                    long length;
+                    try {
+                        length = Varint.read(window);
+                    } catch(RuntimeException e) {
+                        break;
+                    }
+                    if(length > window.remaining()) {
+                        break;
+                    }
+                    int start = window.position();
+                    action.accept(new ReplayPlayer(window.slice(start, (int) length)));
+                    window.position(start + (int) length);
+                    consumed = window.position();
+                    games++;
+                }
+                if(consumed == 0) {
+                    if(windowSize < SEGMENT_SIZE) {
+                        // Truncated trailing record, e.g. from a crash mid-write.
+                        break;
+                    }
+                    consumed = mapSingleRecord(channel, position, action);
+                    games++;
+                }
+                position += consumed;
+            }
+            return games;
+        }
+    }
+
+    private static int mapSingleRecord(FileChannel channel, long position, Consumer<ReplayPlayer> action) throws IOException {
+        MappedByteBuffer prefix = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(Varint.MAX_SIZE, channel.size() - position));
+        long length = Varint.read(prefix);
+        int prefixSize = prefix.position();
+        if(length > Integer.MAX_VALUE - prefixSize) {
+            throw new IOException("Replay record too large: " + length + " bytes");
+        }
+        action.accept(new ReplayPlayer(channel.map(FileChannel.MapMode.READ_ONLY, position + prefixSize, length)));
+        return prefixSize + (int) length;
+    }
+}
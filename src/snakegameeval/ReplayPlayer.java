@@ -0,0 +1,103 @@
+package snakegameeval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Replays a recorded game against a SnakeEngine. Before each tick the events
+ * recorded for that tick are fed to the engine exactly as the keyboard did.
+ */
+public class ReplayPlayer {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private final ByteBuffer record;
+    private final int columnCount;
+    private final int rowCount;
+    private final int minLength;
+    private final long seed;
+    private final int eventsStart;
+    private long nextTick;
+    private int nextCode;
+
+    public ReplayPlayer(ByteBuffer record) {
+        this.record = record.duplicate();
+        int version = this.record.get() & 0xFF;
+        if(version != ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version " + version);
+        }
+        this.columnCount = (int) Varint.read(this.record);
+        this.rowCount = (int) Varint.read(this.record);
+        this.minLength = (int) Varint.read(this.record);
+        this.seed = this.record.getLong();
+        this.eventsStart = this.record.position();
+    }
+
+    public SnakeEngine createEngine() {
+        return new SnakeEngine(columnCount, rowCount, minLength, new Random(seed));
+    }
+
+    public void restart(SnakeEngine engine) {
+        engine.reset(seed);
+        record.position(eventsStart);
+        this.nextTick = 0;
+        readEvent();
+    }
+
+    public void applyInput(SnakeEngine engine) {
+        long tick = engine.getTick();
+        while(nextCode != ReplayRecorder.END && nextTick == tick) {
+            engine.addDirection(DIRECTIONS[nextCode]);
+            readEvent();
+        }
+    }
+
+    public boolean isFinished(SnakeEngine engine) {
+        return engine.isGameOver() || (nextCode == ReplayRecorder.END && nextTick <= engine.getTick());
+    }
+
+    public boolean step(SnakeEngine engine) {
+        applyInput(engine);
+        if(isFinished(engine)) {
+            return false;
+        }
+        engine.step();
+        return !isFinished(engine);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    private void readEvent() {
+        if(!record.hasRemaining()) {
+            this.nextCode = ReplayRecorder.END;
+            this.nextTick = Long.MAX_VALUE;
+            return;
+        }
+        long event = Varint.read(record);
+        this.nextTick += event >>> 3;
+        this.nextCode = (int) (event & 7);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: ReplayPlayer <archive>");
+            return;
+        }
+        long start = System.nanoTime();
+        long[] ticks = new long[1];
+        long[] score = new long[1];
+        long games = ReplayArchive.forEachGame(Path.of(args[0]), replay -> {
+            SnakeEngine engine = replay.createEngine();
+            replay.restart(engine);
+            while(replay.step(engine)) {
+            }
+            ticks[0] += engine.getTick();
+            score[0] += engine.getScore();
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(games + " games, " + ticks[0] + " ticks, total score " + score[0] + " in "
+                + String.format("%.3f", seconds) + " s (" + String.format("%.0f", ticks[0] / seconds) + " ticks/s)");
+    }
+}
@@ -0,0 +1,67 @@
+package snakegameeval;
+
+import java.util.Arrays;
+
+/**
+ * Records one game as its RNG seed plus the tick-indexed direction changes the
+ * engine accepted. Each event is a single varint of (tick delta << 3 | code).
+ */
+public class ReplayRecorder {
+    public static final int VERSION = 1;
+    public static final int END = 4;
+    private byte[] buffer = new byte[256];
+    private int size;
+    private long lastTick;
+    private boolean recording;
+
+    public void start(SnakeEngine engine, long seed) {
+        this.size = 0;
+        this.lastTick = 0;
+        ensureCapacity(1 + 3 * Varint.MAX_SIZE + Long.BYTES);
+        buffer[size++] = (byte) VERSION;
+        size = Varint.write(buffer, size, engine.getColumnCount());
+        size = Varint.write(buffer, size, engine.getRowCount());
+        size = Varint.write(buffer, size, engine.getMinLength());
+        for(int shift = 56; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (seed >>> shift);
+        }
+        this.recording = true;
+    }
+
+    public void recordDirection(long tick, Direction direction) {
+        if(recording) {
+            putEvent(tick, direction.ordinal());
+        }
+    }
+
+    public void finish(long tick) {
+        if(recording) {
+            putEvent(tick, END);
+            this.recording = false;
+        }
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void putEvent(long tick, int code) {
+        ensureCapacity(Varint.MAX_SIZE);
+        size = Varint.write(buffer, size, ((tick - lastTick) << 3) | code);
+        this.lastTick = tick;
+    }
+
+    private void ensureCapacity(int extra) {
+        if(size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
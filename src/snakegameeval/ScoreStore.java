@@ -0,0 +1,140 @@
+package snakegameeval;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScoreStore {
+    public static final String DEFAULT_URL = "jdbc:h2:./snakegame";
+    private static final String CREATE_LOGIN = "CREATE TABLE IF NOT EXISTS login ("
+            + "username VARCHAR(64) PRIMARY KEY, password VARCHAR(64) NOT NULL)";
+    private static final String CREATE_SCORES = "CREATE TABLE IF NOT EXISTS scores ("
+            + "username VARCHAR(64) NOT NULL, score INT NOT NULL, fruits_eaten INT NOT NULL, "
+            + "snake_length INT NOT NULL, played_at BIGINT NOT NULL)";
+    private static final String SELECT_USER = "SELECT password FROM login WHERE username = ?";
+    private static final String INSERT_USER = "INSERT INTO login (username, password) VALUES (?, ?)";
+    private static final String INSERT_SCORE = "INSERT INTO scores "
+            + "(username, score, fruits_eaten, snake_length, played_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_SCORES = "SELECT username, score, fruits_eaten, snake_length, played_at FROM scores";
+    private final ConnectionPool pool;
+
+    public ScoreStore(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public static ScoreStore fromSystemProperties() {
+        String url = System.getProperty("snake.db.url", DEFAULT_URL);
+        String username = System.getProperty("snake.db.user", "");
+        String password = System.getProperty("snake.db.password", "");
+        return new ScoreStore(new ConnectionPool(url, username, password, 4));
+    }
+
+    public void createSchema() throws SQLException {
+        Connection conn = pool.borrow();
+        try(Statement statement = conn.createStatement()) {
+            statement.executeUpdate(CREATE_LOGIN);
+            statement.executeUpdate(CREATE_SCORES);
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    public boolean addUser(String username, String password) throws SQLException {
+        Connection conn = pool.borrow();
+        try(PreparedStatement select = conn.prepareStatement(SELECT_USER)) {
+            select.setString(1, username);
+            try(ResultSet result = select.executeQuery()) {
+                if(result.next()) {
+                    return false;
+                }
+            }
+            try(PreparedStatement insert = conn.prepareStatement(INSERT_USER)) {
+                insert.setString(1, username);
+                insert.setString(2, password);
+                return insert.executeUpdate() == 1;
+            }
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    public boolean authenticate(String username, String password) throws SQLException {
+        Connection conn = pool.borrow();
+        try(PreparedStatement select = conn.prepareStatement(SELECT_USER)) {
+            select.setString(1, username);
+            try(ResultSet result = select.executeQuery()) {
+                return result.next() && result.getString(1).equals(password);
+            }
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    public void saveResults(List<GameResult> results) throws SQLException {
+        Connection conn = pool.borrow();
+        try {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try(PreparedStatement insert = conn.prepareStatement(INSERT_SCORE)) {
+                for(GameResult result : results) {
+                    insert.setString(1, result.getUsername());
+                    insert.setInt(2, result.getScore());
+                    insert.setInt(3, result.getFruitsEaten());
+                    insert.setInt(4, result.getLength());
+                    insert.setLong(5, result.getPlayedAt());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                conn.commit();
+            } catch(SQLException e) {
+                try {
+                    conn.rollback();
+                } catch(SQLException rollback) {
+                    e.addSuppressed(rollback);
+                }
+                throw e;
+            } finally {
+                restoreAutoCommit(conn, autoCommit);
+            }
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    // A connection left in a transaction must not go back into use, so it is
+    // closed and the pool drops it.
+    private static void restoreAutoCommit(Connection conn, boolean autoCommit) {
+        try {
+            conn.setAutoCommit(autoCommit);
+        } catch(SQLException e) {
+            System.err.println("Failed to restore auto-commit, closing connection: " + e);
+            try {
+                conn.close();
+            } catch(SQLException closeFailure) {
+            }
+        }
+    }
+
+    public List<GameResult> loadResults() throws SQLException {
+        List<GameResult> results = new ArrayList<>();
+        Connection conn = pool.borrow();
+        try(PreparedStatement select = conn.prepareStatement(SELECT_SCORES);
+            ResultSet result = select.executeQuery()) {
+            while(result.next()) {
+                results.add(new GameResult(result.getString(1), result.getInt(2), result.getInt(3),
+                        result.getInt(4), result.getLong(5)));
+            }
+        } finally {
+            pool.release(conn);
+        }
+        return results;
+    }
+
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,78 @@
+package snakegameeval;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists game results on a background thread. The game thread only offers
+ * to a bounded queue; the writer drains it and saves each drain as one batch.
+ * On start it also loads the stored results into the leaderboard once.
+ */
+public class ScoreWriter implements Runnable, AutoCloseable {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BATCH_SIZE = 64;
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000L;
+    private final ScoreStore store;
+    private final Leaderboard leaderboard;
+    private final BlockingQueue<GameResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread thread;
+    private volatile boolean running;
+
+    public ScoreWriter(ScoreStore store, Leaderboard leaderboard) {
+        this.store = store;
+        this.leaderboard = leaderboard;
+        this.thread = new Thread(this, "Score Writer");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        this.running = true;
+        thread.start();
+    }
+
+    public boolean submit(GameResult result) {
+        return queue.offer(result);
+    }
+
+    @Override
+    public void run() {
+        try {
+            store.createSchema();
+            leaderboard.load(store.loadResults());
+        } catch(SQLException e) {
+            System.err.println("Failed to load scores: " + e);
+        }
+        List<GameResult> batch = new ArrayList<>(BATCH_SIZE);
+        while(running || !queue.isEmpty()) {
+            try {
+                GameResult first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                store.saveResults(batch);
+            } catch(InterruptedException e) {
+                this.running = false;
+            } catch(SQLException e) {
+                System.err.println("Failed to save " + batch.size() + " game results: " + e);
+            }
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.running = false;
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+    }
+}
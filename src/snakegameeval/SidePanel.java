@@ -7,76 +7,303 @@ import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 
+/**
+ * The title, headings and controls are pre-rendered once into a static layer.
+ * Each statistic line has its own image, allocated once and redrawn in place
+ * only when its value changes; the leaderboard block is re-rendered when the
+ * leaderboard does. flushChanges() compares the
+ * engine's and the leaderboard's change stamps, and skips the repaint when
+ * neither has moved.
+ */
 public class SidePanel extends JPanel {
     private static final long serialVersionUID = -40557434900946408L;
     private static final Font LARGE_FONT = new Font("Serif", Font.BOLD | Font.ITALIC, 25);
     private static final Font MEDIUM_FONT = new Font("SansSerif", Font.BOLD, 16);
     private static final Font SMALL_FONT = new Font("Monospaced", Font.BOLD, 12);
-    private SnakeGame game;
+    private SnakeEngine game;
+    private final FrameExchange frames;
+    private Leaderboard leaderboard;
+    private volatile String player;
+    private volatile boolean showMetrics;
+    // Stamps of the last flush, read and written on the game loop thread only.
+    private int flushedStats = -1;
+    private int flushedRanking = -1;
+    private long metricsFlushedAt;
+    private volatile boolean dirty = true;
+    // Painting caches, touched on the EDT only (and by prepare() before the panel is shown).
+    private FontMetrics smallMetrics;
+    private BufferedImage controlsLayer;
+    private BufferedImage metricsLayer;
+    private StatLine[] statLines;
+    private final StringBuilder statText = new StringBuilder(32);
+    private char[] statChars = new char[32];
+    private BufferedImage leaderboardImage;
+    private int leaderboardImageVersion = -1;
 
-    public SidePanel(SnakeGame game) {
+    public SidePanel(SnakeEngine game, Leaderboard leaderboard, String player) {
         this.game = game;
-        setPreferredSize(new Dimension(300, BoardPanel.ROW_COUNT * BoardPanel.TILE_SIZE));
+        this.frames = new FrameExchange(game, false);
+        this.leaderboard = leaderboard;
+        this.player = player;
+        setPreferredSize(new Dimension(300, BoardPanel.VIEW_HEIGHT));
         setBackground(Color.white);
     }
 
-    private static final int STATISTICS_OFFSET = 150;
-    private static final int CONTROLS_OFFSET = 320;
+    public void setPlayer(String player) {
+        this.player = player;
+        this.dirty = true;
+    }
+
+    public void flushChanges() {
+        int stats = game.getStatsVersion();
+        int ranking = leaderboard.getVersion();
+        boolean metricsDue = showMetrics && System.nanoTime() - metricsFlushedAt >= METRICS_REFRESH_NANOS;
+        if(stats == flushedStats && ranking == flushedRanking && !metricsDue && !dirty) {
+            return;
+        }
+        this.flushedStats = stats;
+        this.flushedRanking = ranking;
+        this.dirty = false;
+        if(metricsDue) {
+            this.metricsFlushedAt = System.nanoTime();
+        }
+        frames.publish();
+        repaint();
+    }
+
+    public void toggleMetrics() {
+        this.showMetrics = !showMetrics;
+        repaint();
+    }
+
+    public void prepare() {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = scratch.createGraphics();
+        this.smallMetrics = g2d.getFontMetrics(SMALL_FONT);
+        g2d.dispose();
+        this.controlsLayer = renderLayer(false);
+        statLines();
+    }
+
+    private static final int STATISTICS_OFFSET = 100;
+    private static final int LEADERBOARD_OFFSET = 255;
+    private static final int LEADERBOARD_ENTRIES = 5;
+    private static final int CONTROLS_OFFSET = 370;
     private static final int MESSAGE_STRIDE = 30;
+    private static final int LEADERBOARD_STRIDE = 18;
+    private static final int CONTROLS_STRIDE = 27;
+    private static final int STAT_LINES = 4;
+    private static final int METRICS_STRIDE = 22;
     private static final int SMALL_OFFSET = 30;
     private static final int LARGE_OFFSET = 50;
+    private static final long METRICS_REFRESH_NANOS = 250000000L;
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
         Graphics2D g2d = (Graphics2D) g;
+        boolean metrics = showMetrics;
+        g2d.drawImage(metrics ? metricsLayer() : controlsLayer(), 0, 0, null);
+        drawStatistics(g2d, frames.latest());
+        drawLeaderboard(g2d);
+        if(metrics) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setFont(SMALL_FONT);
+            drawMetrics(g2d);
+        }
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().recordSidePaint(System.nanoTime() - start);
+        }
+    }
+    private BufferedImage controlsLayer() {
+        if(controlsLayer == null) {
+            this.controlsLayer = renderLayer(false);
+        }
+        return controlsLayer;
+    }
+
+    private BufferedImage metricsLayer() {
+        if(metricsLayer == null) {
+            this.metricsLayer = renderLayer(true);
+        }
+        return metricsLayer;
+    }
+
+    private BufferedImage renderLayer(boolean metrics) {
+        Dimension size = getPreferredSize();
+        BufferedImage layer = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = layer.createGraphics();
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, size.width, size.height);
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        drawTitle(g2d);
-        drawStatistics(g2d);
-        drawControls(g2d);
+        drawTitle(g2d, size.width);
+        drawHeading(g2d, "Statistics", STATISTICS_OFFSET);
+        drawHeading(g2d, "Leaderboard", LEADERBOARD_OFFSET);
+        if(metrics) {
+            drawHeading(g2d, "Metrics", CONTROLS_OFFSET);
+        } else {
+            drawControls(g2d);
+        }
+        g2d.dispose();
+        return layer;
     }
-    private void drawTitle(Graphics2D g2d) {
+
+    private void drawTitle(Graphics2D g2d, int width) {
         g2d.setColor(Color.blue);
         g2d.setFont(LARGE_FONT);
         String title = "Snake Game";
         int titleWidth = g2d.getFontMetrics().stringWidth(title);
-        g2d.drawString(title, getWidth() / 2 - titleWidth / 2, 50);
+        g2d.drawString(title, width / 2 - titleWidth / 2, 50);
     }
-    private void drawStatistics(Graphics2D g2d) {
+
+    private void drawHeading(Graphics2D g2d, String heading, int y) {
         g2d.setColor(Color.black);
         g2d.setFont(MEDIUM_FONT);
-        g2d.drawString("Statistics", SMALL_OFFSET, STATISTICS_OFFSET);
-        g2d.setFont(SMALL_FONT);
+        g2d.drawString(heading, SMALL_OFFSET, y);
+    }
 
+    private void drawStatistics(Graphics2D g2d, FrameSnapshot frame) {
+        GameResult best = leaderboard.getBest(player);
         int drawY = STATISTICS_OFFSET;
-        drawStringWithShadow(g2d, "Total Score: " + game.getScore(), LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Fruit Eaten: " + game.getFruitsEaten(), LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Fruit Score: " + game.getNextFruitScore(), LARGE_OFFSET, drawY += MESSAGE_STRIDE);
+        drawStat(g2d, 0, "Total Score: ", frame.getScore(), drawY += MESSAGE_STRIDE);
+        drawStat(g2d, 1, "Fruit Eaten: ", frame.getFruitsEaten(), drawY += MESSAGE_STRIDE);
+        drawStat(g2d, 2, "Fruit Score: ", frame.getNextFruitScore(), drawY += MESSAGE_STRIDE);
+        drawStat(g2d, 3, "Your Best: ", best == null ? 0 : best.getScore(), drawY += MESSAGE_STRIDE);
+    }
+
+    private void drawStat(Graphics2D g2d, int line, String label, int value, int y) {
+        StatLine stat = statLines()[line];
+        int ascent = smallMetrics().getAscent();
+        if(!stat.rendered || stat.value != value) {
+            statText.setLength(0);
+            statText.append(label).append(value);
+            int length = statText.length();
+            if(statChars.length < length) {
+                this.statChars = new char[length];
+            }
+            statText.getChars(0, length, statChars, 0);
+            Graphics2D lineGraphics = stat.graphics;
+            lineGraphics.setColor(getBackground());
+            lineGraphics.fillRect(0, 0, stat.image.getWidth(), stat.image.getHeight());
+            lineGraphics.setColor(Color.lightGray);
+            lineGraphics.drawChars(statChars, 0, length, LARGE_OFFSET + 1, ascent + 1);
+            lineGraphics.setColor(Color.black);
+            lineGraphics.drawChars(statChars, 0, length, LARGE_OFFSET, ascent);
+            stat.value = value;
+            stat.rendered = true;
+        }
+        g2d.drawImage(stat.image, 0, y - ascent, null);
+    }
+
+    private StatLine[] statLines() {
+        if(statLines == null) {
+            FontMetrics fm = smallMetrics();
+            int width = getPreferredSize().width;
+            int height = fm.getAscent() + fm.getDescent() + 1;
+            StatLine[] lines = new StatLine[STAT_LINES];
+            for(int i = 0; i < lines.length; i++) {
+                lines[i] = new StatLine(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+            }
+            this.statLines = lines;
+        }
+        return statLines;
+    }
+
+    private void drawLeaderboard(Graphics2D g2d) {
+        int version = leaderboard.getVersion();
+        if(leaderboardImage == null || leaderboardImageVersion != version) {
+            GameResult[] top = leaderboard.getTop();
+            String[] lines = new String[Math.min(LEADERBOARD_ENTRIES, top.length)];
+            for(int i = 0; i < lines.length; i++) {
+                lines[i] = (i + 1) + ". " + top[i].getUsername() + "  " + top[i].getScore();
+            }
+            this.leaderboardImage = renderLines(lines, LEADERBOARD_STRIDE);
+            this.leaderboardImageVersion = version;
+        }
+        g2d.drawImage(leaderboardImage, 0, LEADERBOARD_OFFSET + LEADERBOARD_STRIDE - smallMetrics().getAscent(), null);
+    }
+
+    /**
+     * Renders shadowed small-font lines onto the panel background, the first
+     * baseline at the font's ascent and each next one a stride lower.
+     */
+    private BufferedImage renderLines(String[] lines, int stride) {
+        FontMetrics fm = smallMetrics();
+        int height = Math.max(1, (lines.length - 1) * stride + fm.getAscent() + fm.getDescent() + 1);
+        BufferedImage image = new BufferedImage(getPreferredSize().width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, image.getWidth(), height);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setFont(SMALL_FONT);
+        int drawY = fm.getAscent();
+        for(String line : lines) {
+            drawStringWithShadow(g2d, line, LARGE_OFFSET, drawY);
+            drawY += stride;
+        }
+        g2d.dispose();
+        return image;
+    }
+
+    private FontMetrics smallMetrics() {
+        if(smallMetrics == null) {
+            this.smallMetrics = getFontMetrics(SMALL_FONT);
+        }
+        return smallMetrics;
     }
 
     private void drawControls(Graphics2D g2d) {
-        g2d.setColor(Color.black);
-        g2d.setFont(MEDIUM_FONT);
-        g2d.drawString("Controls", SMALL_OFFSET, CONTROLS_OFFSET);
+        drawHeading(g2d, "Controls", CONTROLS_OFFSET);
         g2d.setFont(SMALL_FONT);
 
         int drawY = CONTROLS_OFFSET;
-        drawStringWithShadow(g2d, "Up: W / Up Arrow key", LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Down: S / Down Arrow key", LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Left: A / Left Arrow key", LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Right: D / Right Arrow key", LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Pause / Resume Game: P", LARGE_OFFSET, drawY += MESSAGE_STRIDE);
-        drawStringWithShadow(g2d, "Exit: esc key", LARGE_OFFSET, drawY += MESSAGE_STRIDE);
+        drawStringWithShadow(g2d, "Move: W A S D / Arrow keys", LARGE_OFFSET, drawY += CONTROLS_STRIDE);
+        drawStringWithShadow(g2d, "Pause / Resume Game: P", LARGE_OFFSET, drawY += CONTROLS_STRIDE);
+        drawStringWithShadow(g2d, "Autopilot: I   Heatmap: H", LARGE_OFFSET, drawY += CONTROLS_STRIDE);
+        drawStringWithShadow(g2d, "Metrics: M   Zoom: + / -", LARGE_OFFSET, drawY += CONTROLS_STRIDE);
+        drawStringWithShadow(g2d, "Quick save / load: F5 / F9", LARGE_OFFSET, drawY += CONTROLS_STRIDE);
+        drawStringWithShadow(g2d, "Save and exit: esc key", LARGE_OFFSET, drawY += CONTROLS_STRIDE);
+    }
+
+    private void drawMetrics(Graphics2D g2d) {
+        int drawY = CONTROLS_OFFSET;
+        GameMetrics metrics = GameMetrics.get();
+        if(metrics == null) {
+            drawStringWithShadow(g2d, "Run with -Dsnake.metrics=true", LARGE_OFFSET, drawY += METRICS_STRIDE);
+            return;
+        }
+        int x = LARGE_OFFSET;
+        drawStringWithShadow(g2d, String.format("Tick p50/99: %.0f/%.0f us", metrics.getTickMicrosP50(), metrics.getTickMicrosP99()), x, drawY += METRICS_STRIDE);
+        drawStringWithShadow(g2d, String.format("Board paint: %.0f/%.0f us", metrics.getBoardPaintMicrosP50(), metrics.getBoardPaintMicrosP99()), x, drawY += METRICS_STRIDE);
+        drawStringWithShadow(g2d, String.format("Side paint: %.0f/%.0f us", metrics.getSidePaintMicrosP50(), metrics.getSidePaintMicrosP99()), x, drawY += METRICS_STRIDE);
+        drawStringWithShadow(g2d, "Late frames: " + metrics.getLateFrames() + " of " + metrics.getFrameCount(), x, drawY += METRICS_STRIDE);
+        drawStringWithShadow(g2d, String.format("Input lag: %.1f/%.1f ms", metrics.getInputToMovementMillisP50(), metrics.getInputToMovementMillisP99()), x, drawY += METRICS_STRIDE);
+        drawStringWithShadow(g2d, String.format("GC pauses: %d, max %.1f ms", metrics.getGcPauseCount(), metrics.getGcPauseMillisMax()), x, drawY += METRICS_STRIDE);
+        drawStringWithShadow(g2d, String.format("Alloc/tick: %.0f/%.0f B", metrics.getAllocatedBytesPerTickP50(), metrics.getAllocatedBytesPerTickP99()), x, drawY += METRICS_STRIDE);
     }
 
     private void drawStringWithShadow(Graphics2D g2d, String text, int x, int y) {
-        FontMetrics fm = g2d.getFontMetrics();
-        int textWidth = fm.stringWidth(text);
         g2d.setColor(Color.lightGray);
         g2d.drawString(text, x + 1, y + 1);
         g2d.setColor(Color.black);
         g2d.drawString(text, x, y);
     }
+
+    private final class StatLine {
+        private final BufferedImage image;
+        // Kept for the life of the image, so a redraw allocates nothing.
+        private final Graphics2D graphics;
+        private int value;
+        private boolean rendered;
+
+        StatLine(BufferedImage image) {
+            this.image = image;
+            this.graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setFont(SMALL_FONT);
+        }
+    }
 }
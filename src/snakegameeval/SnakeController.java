@@ -0,0 +1,18 @@
+package snakegameeval;
+
+/**
+ * Plays a game in place of the keyboard. Called on every tick before the
+ * engine steps; the returned direction is queued exactly like a key press.
+ */
+public interface SnakeController {
+    default void startGame(SnakeEngine engine) {
+    }
+
+    /**
+     * @return the direction to queue this tick, or null to keep going straight
+     */
+    Direction nextDirection(SnakeEngine engine);
+
+    default void endGame(SnakeEngine engine) {
+    }
+}
@@ -0,0 +1,456 @@
+package snakegameeval;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+public class SnakeEngine {
+    public static final int MIN_SNAKE_LENGTH = 5;
+    public static final int MAX_DIRECTIONS = 3;
+    private static final int DIRTY_CAPACITY = 64;
+    private static final TileType[] TILE_TYPES = TileType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    public static final int MAX_BOARD_SIZE = 4096;
+    private static final int INITIAL_BODY_CAPACITY = 4096;
+    // Tile words per block of the free-cell summary.
+    private static final int BLOCK_SHIFT = 6;
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final int EMPTY = 0;
+    private static final int FRUIT = TileType.Fruit.ordinal() + 1;
+    private static final int SNAKE_HEAD = TileType.SnakeHead.ordinal() + 1;
+    private static final int SNAKE_BODY = TileType.SnakeBody.ordinal() + 1;
+    private final int columnCount;
+    private final int rowCount;
+    private final int minLength;
+    private final int cellCount;
+    // 2 bits per cell, 32 cells per word, row-major.
+    private final long[] tiles;
+    private int[] body;
+    // Empty cells per tile word and per block of words, so the k-th empty cell
+    // is found without a per-cell index: 1 byte per 32 cells.
+    private final byte[] wordFree;
+    private final int[] blockFree;
+    private final int[] directions;
+    private final int[] dirtyCells;
+    private RandomGenerator random;
+    private int bodyHead;
+    private int length;
+    private int freeCount;
+    private int fruit;
+    private int directionHead;
+    private int directionCount;
+    private int dirtyCount;
+    private boolean allDirty;
+    private long tick;
+    private volatile boolean isNewGame;
+    private volatile boolean isGameOver;
+    private volatile boolean isPaused;
+    private int score;
+    private int fruitsEaten;
+    private int nextFruitScore;
+    // Bumped whenever score, fruitsEaten or nextFruitScore changes.
+    private int statsVersion;
+
+    public SnakeEngine(int columnCount, int rowCount, RandomGenerator random) {
+        this(columnCount, rowCount, MIN_SNAKE_LENGTH, random);
+    }
+
+    public SnakeEngine(int columnCount, int rowCount, int minLength, RandomGenerator random) {
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.minLength = minLength;
+        if(columnCount < 1 || rowCount < 1 || columnCount > MAX_BOARD_SIZE || rowCount > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1x1 and "
+                    + MAX_BOARD_SIZE + "x" + MAX_BOARD_SIZE + ": " + columnCount + "x" + rowCount);
+        }
+        this.cellCount = columnCount * rowCount;
+        this.tiles = new long[(cellCount + 31) >>> 5];
+        this.body = new int[Math.min(cellCount, INITIAL_BODY_CAPACITY)];
+        this.wordFree = new byte[tiles.length];
+        this.blockFree = new int[(tiles.length + (1 << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT];
+        this.directions = new int[MAX_DIRECTIONS];
+        this.dirtyCells = new int[DIRTY_CAPACITY];
+        this.random = random;
+        this.isNewGame = true;
+    }
+
+    public void reset(long seed) {
+        this.random = new Random(seed);
+        reset();
+    }
+
+    public void reset() {
+        this.tick = 0;
+        this.score = 0;
+        this.fruitsEaten = 0;
+        this.statsVersion++;
+        this.isNewGame = false;
+        this.isGameOver = false;
+        this.isPaused = false;
+        clearTiles();
+        this.fruit = -1;
+        int head = (rowCount / 2) * columnCount + columnCount / 2;
+        this.bodyHead = 0;
+        this.length = 1;
+        body[0] = head;
+        setTile(head, SNAKE_HEAD);
+        this.directionHead = 0;
+        this.directionCount = 1;
+        directions[0] = Direction.North.ordinal();
+        spawnFruit();
+    }
+
+    public TileType step() {
+        tick++;
+        TileType collision = moveSnake();
+        if(collision == TileType.Fruit) {
+            fruitsEaten++;
+            score += nextFruitScore;
+            statsVersion++;
+            spawnFruit();
+        } else if(collision == TileType.SnakeBody) {
+            isGameOver = true;
+        } else if(nextFruitScore > 10) {
+            nextFruitScore--;
+            statsVersion++;
+        }
+        return collision;
+    }
+
+    private TileType moveSnake() {
+        int neck = body[bodyHead];
+        int x = neck % columnCount;
+        int y = neck / columnCount;
+        switch(directions[directionHead]) {
+            case 0:
+                y--;
+                break;
+            case 1:
+                x++;
+                break;
+            case 2:
+                y++;
+                break;
+            case 3:
+                x--;
+                break;
+        }
+        if(x < 0 || x >= columnCount || y < 0 || y >= rowCount) {
+            return TileType.SnakeBody;
+        }
+        int head = y * columnCount + x;
+        int old = tileAt(head);
+        if(old != FRUIT && length > minLength) {
+            int tail = bodyHead + length - 1;
+            if(tail >= body.length) {
+                tail -= body.length;
+            }
+            setTile(body[tail], EMPTY);
+            length--;
+            old = tileAt(head);
+        }
+        if(old != SNAKE_BODY) {
+            if(length == body.length) {
+                growBody();
+            }
+            setTile(neck, SNAKE_BODY);
+            if(--bodyHead < 0) {
+                bodyHead = body.length - 1;
+            }
+            body[bodyHead] = head;
+            length++;
+            setTile(head, SNAKE_HEAD);
+            if(directionCount > 1) {
+                if(++directionHead == MAX_DIRECTIONS) {
+                    directionHead = 0;
+                }
+                directionCount--;
+            }
+        }
+        return old == EMPTY ? null : TILE_TYPES[old - 1];
+    }
+
+    /**
+     * Puts the engine in the middle of a game: path holds the body from head
+     * to tail and queued the current direction followed by any pending turns.
+     *
+     * @throws IllegalArgumentException if the body overlaps itself or the fruit
+     */
+    void restore(int[] path, int length, int fruit, int[] queued, int queuedCount,
+            long tick, int score, int fruitsEaten, int nextFruitScore, boolean paused) {
+        if(length < 1 || length > cellCount || queuedCount < 1 || queuedCount > MAX_DIRECTIONS) {
+            throw new IllegalArgumentException("Invalid snake: length " + length + ", " + queuedCount + " directions");
+        }
+        // Checked before anything is touched, so a rejected state leaves the current game intact.
+        int[] sorted = Arrays.copyOf(path, length);
+        Arrays.sort(sorted);
+        if(sorted[0] < 0 || sorted[length - 1] >= cellCount) {
+            throw new IllegalArgumentException("Snake leaves the board at cell " + (sorted[0] < 0 ? sorted[0] : sorted[length - 1]));
+        }
+        for(int i = 1; i < length; i++) {
+            if(sorted[i] == sorted[i - 1]) {
+                throw new IllegalArgumentException("Snake overlaps itself at cell " + sorted[i]);
+            }
+        }
+        if(fruit >= cellCount || (fruit >= 0 && Arrays.binarySearch(sorted, fruit) >= 0)) {
+            throw new IllegalArgumentException("Fruit on the snake at cell " + fruit);
+        }
+        clearTiles();
+        this.dirtyCount = 0;
+        if(body.length < length) {
+            this.body = new int[length];
+        }
+        this.bodyHead = 0;
+        this.length = length;
+        for(int i = 0; i < length; i++) {
+            body[i] = path[i];
+            setTile(path[i], i == 0 ? SNAKE_HEAD : SNAKE_BODY);
+        }
+        this.fruit = fruit;
+        if(fruit >= 0) {
+            setTile(fruit, FRUIT);
+        }
+        for(int i = 0; i < queuedCount; i++) {
+            directions[i] = queued[i] & 3;
+        }
+        this.directionHead = 0;
+        this.directionCount = queuedCount;
+        this.tick = tick;
+        this.score = score;
+        this.fruitsEaten = fruitsEaten;
+        this.nextFruitScore = nextFruitScore;
+        this.statsVersion++;
+        this.isNewGame = false;
+        this.isGameOver = false;
+        this.isPaused = paused;
+    }
+
+    int getQueuedDirection(int index) {
+        return directions[(directionHead + index) % MAX_DIRECTIONS];
+    }
+
+    int getQueuedDirectionCount() {
+        return directionCount;
+    }
+
+    public boolean addDirection(Direction direction) {
+        if(isPaused || isGameOver || directionCount >= MAX_DIRECTIONS) {
+            return false;
+        }
+        int tail = directionHead + directionCount;
+        if(directionCount > 0) {
+            int last = directions[(tail - 1) % MAX_DIRECTIONS];
+            // North/South are even ordinals, East/West odd: same parity means same axis.
+            if((last & 1) == (direction.ordinal() & 1)) {
+                return false;
+            }
+        }
+        directions[tail % MAX_DIRECTIONS] = direction.ordinal();
+        directionCount++;
+        return true;
+    }
+
+    void spawnFruit() {
+        this.nextFruitScore = 100;
+        if(fruit >= 0 && tileAt(fruit) == FRUIT) {
+            setTile(fruit, EMPTY);
+        }
+        if(freeCount == 0) {
+            this.fruit = -1;
+            return;
+        }
+        this.fruit = freeCell(random.nextInt(freeCount));
+        setTile(fruit, FRUIT);
+    }
+
+    // The k-th empty cell in row-major order.
+    private int freeCell(int k) {
+        int block = 0;
+        while(k >= blockFree[block]) {
+            k -= blockFree[block++];
+        }
+        int word = block << BLOCK_SHIFT;
+        while(k >= wordFree[word]) {
+            k -= wordFree[word++];
+        }
+        long bits = tiles[word];
+        // One bit per empty cell; padding past the last cell only shows up above the real ones.
+        long empty = ~(bits | (bits >>> 1)) & LOW_BITS;
+        for(; k > 0; k--) {
+            empty &= empty - 1;
+        }
+        return (word << 5) + (Long.numberOfTrailingZeros(empty) >>> 1);
+    }
+
+    private void clearTiles() {
+        Arrays.fill(tiles, 0L);
+        Arrays.fill(wordFree, (byte) 32);
+        wordFree[tiles.length - 1] = (byte) (cellCount - ((tiles.length - 1) << 5));
+        Arrays.fill(blockFree, 0);
+        for(int word = 0; word < tiles.length; word++) {
+            blockFree[word >>> BLOCK_SHIFT] += wordFree[word];
+        }
+        this.freeCount = cellCount;
+        this.allDirty = true;
+    }
+
+    private int tileAt(int cell) {
+        return tileAt(tiles, cell);
+    }
+
+    static int tileAt(long[] tiles, int cell) {
+        return (int) (tiles[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    static TileType decodeTile(int type) {
+        return type == EMPTY ? null : TILE_TYPES[type - 1];
+    }
+
+    int getTileWordCount() {
+        return tiles.length;
+    }
+
+    void copyTiles(long[] target) {
+        System.arraycopy(tiles, 0, target, 0, tiles.length);
+    }
+
+    void copyTileWord(long[] target, int word) {
+        target[word] = tiles[word];
+    }
+
+    private void setTile(int cell, int type) {
+        int word = cell >>> 5;
+        int shift = (cell & 31) << 1;
+        long bits = tiles[word];
+        int old = (int) (bits >>> shift) & 3;
+        tiles[word] = (bits & ~(3L << shift)) | ((long) type << shift);
+        if(!allDirty) {
+            if(dirtyCount == dirtyCells.length) {
+                this.allDirty = true;
+            } else {
+                dirtyCells[dirtyCount++] = cell;
+            }
+        }
+        if(old == EMPTY && type != EMPTY) {
+            wordFree[word]--;
+            blockFree[word >>> BLOCK_SHIFT]--;
+            freeCount--;
+        } else if(old != EMPTY && type == EMPTY) {
+            wordFree[word]++;
+            blockFree[word >>> BLOCK_SHIFT]++;
+            freeCount++;
+        }
+    }
+
+    private void growBody() {
+        int[] grown = new int[(int) Math.min(cellCount, 2L * body.length)];
+        for(int i = 0; i < length; i++) {
+            grown[i] = getBodyCell(i);
+        }
+        this.body = grown;
+        this.bodyHead = 0;
+    }
+
+    boolean isOccupied(int cell) {
+        return tileAt(cell) >= SNAKE_HEAD;
+    }
+
+    public TileType getTile(int x, int y) {
+        int type = tileAt(y * columnCount + x);
+        return type == EMPTY ? null : TILE_TYPES[type - 1];
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public int getDirtyCell(int index) {
+        return dirtyCells[index];
+    }
+
+    public boolean isAllDirty() {
+        return allDirty;
+    }
+
+    public void clearDirty() {
+        this.dirtyCount = 0;
+        this.allDirty = false;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getBodyCell(int index) {
+        int slot = bodyHead + index;
+        return body[slot < body.length ? slot : slot - body.length];
+    }
+
+    public int getFruitCell() {
+        return fruit;
+    }
+
+    public int getHeadX() {
+        return body[bodyHead] % columnCount;
+    }
+
+    public int getHeadY() {
+        return body[bodyHead] / columnCount;
+    }
+
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    public void setPaused(boolean paused) {
+        this.isPaused = paused;
+    }
+
+    public boolean isNewGame() {
+        return isNewGame;
+    }
+
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    public boolean isPaused() {
+        return isPaused;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getFruitsEaten() {
+        return fruitsEaten;
+    }
+
+    public int getNextFruitScore() {
+        return nextFruitScore;
+    }
+
+    public int getStatsVersion() {
+        return statsVersion;
+    }
+
+    public Direction getDirection() {
+        return directionCount == 0 ? null : DIRECTIONS[directions[directionHead]];
+    }
+}
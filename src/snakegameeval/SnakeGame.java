@@ -1,43 +1,95 @@
 package snakegameeval;
 
 import java.awt.BorderLayout;
-import java.awt.Point;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.Statement;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 public class SnakeGame extends JFrame {
     private static final long serialVersionUID = 6678292058307426314L;
     private static final long FRAME_TIME = 1000L / 50L;
-    private static final int MIN_SNAKE_LENGTH = 5;
-    private static final int MAX_DIRECTIONS = 3;
+    private static final boolean ACTIVE_RENDERING = Boolean.getBoolean("snake.activeRendering");
+    private static final int MAX_FPS = Integer.getInteger("snake.maxFps", 0);
+    private static final int RENDER_BUFFERS = Integer.getInteger("snake.renderBuffers", 2);
+    private static final String REPLAY_ARCHIVE = System.getProperty("snake.replays", "replays.snka");
+    private static final String CHECKPOINT = System.getProperty("snake.checkpoint", "checkpoint.snkc");
+    private static final String HEATMAP = System.getProperty("snake.heatmap",
+            "heatmap-" + BoardPanel.COL_COUNT + "x" + BoardPanel.ROW_COUNT + ".snkh");
+    private static final float REPLAY_SPEED = Float.parseFloat(System.getProperty("snake.replaySpeed", "1"));
+    private static final float BASE_SPEED = Float.parseFloat(System.getProperty("snake.speed", "9"));
+    private static final float SPEED_RAMP = Float.parseFloat(System.getProperty("snake.speedRamp", "0.1"));
+    private static final float MAX_SPEED = Float.parseFloat(System.getProperty("snake.maxSpeed", "15"));
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Executor EDT = SwingUtilities::invokeLater;
+    private final InputQueue input = new InputQueue();
+    private volatile String player;
+    private final ScoreWriter scores;
+    private final Leaderboard leaderboard;
+    private final ReplayArchive replays;
+    private final ReplayPlayer replay;
+    private final GameEventBus events;
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private final Random seeds = new Random();
+    private final Path checkpoint;
+    private final ExecutorService checkpointWriter;
+    private Autopilot autopilot;
+    private boolean autopilotEnabled;
+    private SnakeEngine engine;
     private BoardPanel board;
+    private BoardCanvas canvas;
     private SidePanel side;
-    private Random random;
     private Clock logicTimer;
-    private boolean isNewGame;
-    private boolean isGameOver;
-    private boolean isPaused;
-    private LinkedList<Point> snake;
-    private LinkedList<Direction> directions;
-    private int score;
-    private int fruitsEaten;
-    private int nextFruitScore;
+    private float speedScale = 1.0f;
+    private volatile long inputLatency;
+    private volatile long loggedInAt;
 
-    private SnakeGame() {
+    private SnakeGame(ScoreWriter scores, Leaderboard leaderboard, ReplayArchive replays, ReplayPlayer replay,
+            GameEventBus events) {
         super("G.O.A.T Snake is Back!");
+        this.scores = scores;
+        this.leaderboard = leaderboard;
+        this.replays = replays;
+        this.replay = replay;
+        this.events = events;
+        events.addHandler("Game Results", this::recordResult);
+        this.checkpoint = replay == null && !CHECKPOINT.isEmpty() ? Path.of(CHECKPOINT) : null;
+        this.checkpointWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Checkpoint Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
         setLayout(new BorderLayout());
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setResizable(false);
-        this.board = new BoardPanel(this);
-        this.side = new SidePanel(this);
-        add(board, BorderLayout.CENTER);
+        if(replay != null) {
+            this.engine = replay.createEngine();
+            this.speedScale = REPLAY_SPEED;
+        } else {
+            this.engine = new SnakeEngine(BoardPanel.COL_COUNT, BoardPanel.ROW_COUNT, new Random());
+        }
+        this.logicTimer = new Clock(speedFor(0));
+        // Fast-forward owes many cycles per frame; scaling the cap keeps the same
+        // wall-clock catch-up window as normal play instead of dropping ticks.
+        logicTimer.setMaxCatchUpCycles((int) Math.ceil(Clock.DEFAULT_MAX_CATCH_UP_CYCLES * Math.max(1.0f, speedScale)));
+        logicTimer.setPaused(true);
+        if(ACTIVE_RENDERING) {
+            this.canvas = new BoardCanvas(engine, logicTimer, RENDER_BUFFERS, MAX_FPS);
+            add(canvas, BorderLayout.CENTER);
+        } else {
+            this.board = new BoardPanel(engine);
+            add(board, BorderLayout.CENTER);
+        }
+        this.side = new SidePanel(engine, leaderboard, null);
         add(side, BorderLayout.WEST);
         addKeyListener(new KeyAdapter() {
             @Override
@@ -45,85 +97,119 @@ public class SnakeGame extends JFrame {
                 switch(e.getKeyCode()) {
                     case KeyEvent.VK_W:
                     case KeyEvent.VK_UP:
-                        if(!isPaused && !isGameOver) {
-                            if(directions.size() < MAX_DIRECTIONS) {
-                                Direction last = directions.peekLast();
-                                if(last != Direction.South && last != Direction.North) {
-                                    directions.addLast(Direction.North);
-                                }
-                            }
-                        }
+                        input.offerDirection(Direction.North);
                         break;
                     case KeyEvent.VK_S:
                     case KeyEvent.VK_DOWN:
-                        if(!isPaused && !isGameOver) {
-                            if(directions.size() < MAX_DIRECTIONS) {
-                                Direction last = directions.peekLast();
-                                if(last != Direction.North && last != Direction.South) {
-                                    directions.addLast(Direction.South);
-                                }
-                            }
-                        }
+                        input.offerDirection(Direction.South);
                         break;
                     case KeyEvent.VK_A:
                     case KeyEvent.VK_LEFT:
-                        if(!isPaused && !isGameOver) {
-                            if(directions.size() < MAX_DIRECTIONS) {
-                                Direction last = directions.peekLast();
-                                if(last != Direction.East && last != Direction.West) {
-                                    directions.addLast(Direction.West);
-                                }
-                            }
-                        }
+                        input.offerDirection(Direction.West);
                         break;
                     case KeyEvent.VK_D:
                     case KeyEvent.VK_RIGHT:
-                        if(!isPaused && !isGameOver) {
-                            if(directions.size() < MAX_DIRECTIONS) {
-                                Direction last = directions.peekLast();
-                                if(last != Direction.West && last != Direction.East) {
-                                    directions.addLast(Direction.East);
-                                }
-                            }
-                        }
+                        input.offerDirection(Direction.East);
                         break;
                     case KeyEvent.VK_P:
-                        if(!isGameOver) {
-                            isPaused = !isPaused;
-                            logicTimer.setPaused(isPaused);
-                        }
+                        input.offer(InputQueue.PAUSE);
                         break;
                     case KeyEvent.VK_ENTER:
-                        if(isNewGame || isGameOver) {
-                            resetGame();
+                        input.offer(InputQueue.START);
+                        break;
+                    case KeyEvent.VK_M:
+                        side.toggleMetrics();
+                        break;
+                    case KeyEvent.VK_H:
+                        if(board != null) {
+                            board.cycleHeatmap();
                         }
                         break;
+                    case KeyEvent.VK_I:
+                        input.offer(InputQueue.AUTOPILOT);
+                        break;
+                    case KeyEvent.VK_F5:
+                        input.offer(InputQueue.SAVE);
+                        break;
+                    case KeyEvent.VK_F9:
+                        input.offer(InputQueue.LOAD);
+                        break;
+                    case KeyEvent.VK_EQUALS:
+                    case KeyEvent.VK_PLUS:
+                    case KeyEvent.VK_ADD:
+                        zoomBoard(1.25f);
+                        break;
+                    case KeyEvent.VK_MINUS:
+                    case KeyEvent.VK_SUBTRACT:
+                        zoomBoard(0.8f);
+                        break;
                     case KeyEvent.VK_ESCAPE:
-                        System.exit(0);
+                        if(!input.offer(InputQueue.EXIT)) {
+                            System.exit(0);
+                        }
                         break;
                 }
             }
         });
         pack();
         setLocationRelativeTo(null);
+    }
+
+    private void setHeatmap(Heatmap heatmap) {
+        if(board != null) {
+            board.setHeatmap(heatmap);
+        }
+    }
+
+    private SnakeGame prepareAssets() {
+        if(canvas != null) {
+            canvas.prepare();
+        } else {
+            board.prepare();
+        }
+        side.prepare();
+        return this;
+    }
+
+    private void setPlayer(String player) {
+        this.loggedInAt = System.nanoTime();
+        this.player = player;
+        side.setPlayer(player);
+    }
+
+    private void launch(long launchedAt) {
+        if(GameMetrics.ENABLED) {
+            Runnable firstFrame = () -> {
+                long now = System.nanoTime();
+                GameMetrics.get().recordFirstFrame(now - launchedAt, now - loggedInAt);
+            };
+            if(canvas != null) {
+                canvas.setFirstFrameListener(firstFrame);
+            } else {
+                board.setFirstFrameListener(firstFrame);
+            }
+        }
         setVisible(true);
+        if(canvas != null) {
+            canvas.start();
+        }
+        new Thread(this::startGame, "Game Loop").start();
     }
 
     private void startGame() {
-        this.random = new Random();
-        this.snake = new LinkedList<>();
-        this.directions = new LinkedList<>();
-        this.logicTimer = new Clock(9.0f);
-        this.isNewGame = true;
-        logicTimer.setPaused(true);
         while(true) {
             long start = System.nanoTime();
+            processInput();
             logicTimer.update();
-            if(logicTimer.hasElapsedCycle()) {
-                updateGame();
+            // The clock bounds how many cycles can be owed, so a stall is caught up in a few frames.
+            while(logicTimer.hasElapsedCycle()) {
+                tick();
+            }
+            flushBoard();
+            side.flushChanges();
+            if(GameMetrics.ENABLED) {
+                GameMetrics.get().recordFrame(System.nanoTime() - start, FRAME_TIME * 1000000L);
             }
-            board.repaint();
-            side.repaint();
             long delta = (System.nanoTime() - start) / 1000000L;
             if(delta < FRAME_TIME) {
                 try {
@@ -135,160 +221,341 @@ public class SnakeGame extends JFrame {
         }
     }
 
+    private void processInput() {
+        int command;
+        while((command = input.poll()) != InputQueue.EMPTY) {
+            switch(command) {
+                case InputQueue.PAUSE:
+                    if(!engine.isGameOver()) {
+                        engine.setPaused(!engine.isPaused());
+                        logicTimer.setPaused(engine.isPaused());
+                        events.publish(engine.isPaused() ? GameEventType.Paused : GameEventType.Resumed, engine);
+                        repaintBoard();
+                    }
+                    break;
+                case InputQueue.START:
+                    if(engine.isNewGame() || engine.isGameOver() || (replay != null && replay.isFinished(engine))) {
+                        resetGame();
+                    }
+                    break;
+                case InputQueue.AUTOPILOT:
+                    if(autopilot == null) {
+                        this.autopilot = new Autopilot();
+                    }
+                    this.autopilotEnabled = !autopilotEnabled;
+                    break;
+                case InputQueue.SAVE:
+                    saveCheckpoint();
+                    break;
+                case InputQueue.LOAD:
+                    loadCheckpoint();
+                    break;
+                case InputQueue.EXIT:
+                    try {
+                        // Let the checkpoint reach the disk before exiting.
+                        saveCheckpoint().get();
+                    } catch(InterruptedException | ExecutionException e) {
+                        e.printStackTrace();
+                    }
+                    if(replays != null && recorder.isRecording()) {
+                        recorder.finish(engine.getTick());
+                        try {
+                            replays.append(recorder.toByteArray());
+                        } catch(IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    System.exit(0);
+                    break;
+                default:
+                    if(replay == null) {
+                        Direction direction = DIRECTIONS[command];
+                        if(engine.addDirection(direction)) {
+                            recorder.recordDirection(engine.getTick(), direction);
+                            events.publish(GameEventType.DirectionChanged, engine, direction);
+                            if(GameMetrics.ENABLED) {
+                                GameMetrics.get().directionAccepted(direction, input.getPolledTimestamp());
+                            }
+                        }
+                    }
+                    break;
+            }
+            this.inputLatency = System.nanoTime() - input.getPolledTimestamp();
+        }
+    }
+
+    private void tick() {
+        if(!GameMetrics.ENABLED) {
+            updateGame();
+            return;
+        }
+        GameMetrics metrics = GameMetrics.get();
+        long allocated = metrics.allocatedBytes();
+        long start = System.nanoTime();
+        updateGame();
+        metrics.recordTick(System.nanoTime() - start, metrics.allocatedBytes() - allocated);
+    }
+
     private void updateGame() {
-        TileType collision = updateSnake();
+        if(replay != null) {
+            replay.applyInput(engine);
+            if(replay.isFinished(engine)) {
+                logicTimer.setPaused(true);
+                return;
+            }
+        } else if(autopilotEnabled) {
+            Direction direction = autopilot.nextDirection(engine);
+            if(GameMetrics.ENABLED) {
+                GameMetrics.get().recordAutopilotPlan(autopilot.getLastPlanNanos());
+            }
+            if(direction != null && engine.addDirection(direction)) {
+                recorder.recordDirection(engine.getTick(), direction);
+                events.publish(GameEventType.DirectionChanged, engine, direction);
+            }
+        }
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().beforeStep(engine.getDirection());
+        }
+        TileType collision = engine.step();
+        events.publish(GameEventType.Tick, engine);
         if(collision == TileType.Fruit) {
-            fruitsEaten++;
-            score += nextFruitScore;
-            spawnFruit();
+            logicTimer.setCyclesPerSecond(speedFor(engine.getFruitsEaten()));
+            events.publish(GameEventType.FruitEaten, engine);
         } else if(collision == TileType.SnakeBody) {
-            isGameOver = true;
             logicTimer.setPaused(true);
-        } else if(nextFruitScore > 10) {
-            nextFruitScore--;
+            events.publish(GameEventType.Death, engine);
+            if(replay != null) {
+                repaintBoard();
+                return;
+            }
+            // A game resumed from a checkpoint is not recorded.
+            if(recorder.isRecording()) {
+                recorder.finish(engine.getTick());
+                if(replays != null) {
+                    replays.appendAsync(recorder);
+                }
+            }
+            repaintBoard();
         }
     }
 
-    private TileType updateSnake() {
-        Direction direction = directions.peekFirst();
-        Point head = new Point(snake.peekFirst());
-        switch(direction) {
-            case North:
-                head.y--;
-                break;
-            case South:
-                head.y++;
-                break;
-            case West:
-                head.x--;
-                break;
-            case East:
-                head.x++;
-                break;
+    private void recordResult(GameEvent event, long sequence, boolean endOfBatch) {
+        if(event.getType() != GameEventType.Death || replay != null) {
+            return;
         }
-        if(head.x < 0 || head.x >= BoardPanel.COL_COUNT || head.y < 0 || head.y >= BoardPanel.ROW_COUNT) {
-            return TileType.SnakeBody;
+        GameResult result = new GameResult(player, event.getScore(), event.getFruitsEaten(),
+                event.getLength(), event.getTimeMillis());
+        leaderboard.record(result);
+        scores.submit(result);
+    }
+
+    private void flushBoard() {
+        if(canvas != null) {
+            canvas.flushChanges();
+        } else {
+            board.flushChanges();
         }
-        TileType old = board.getTile(head.x, head.y);
-        if(old != TileType.Fruit && snake.size() > MIN_SNAKE_LENGTH) {
-            Point tail = snake.removeLast();
-            board.setTile(tail, null);
-            old = board.getTile(head.x, head.y);
+    }
+
+    private void zoomBoard(float factor) {
+        if(canvas != null) {
+            canvas.zoomBy(factor);
+        } else {
+            board.zoomBy(factor);
         }
-        if(old != TileType.SnakeBody) {
-            board.setTile(snake.peekFirst(), TileType.SnakeBody);
-            snake.push(head);
-            board.setTile(head, TileType.SnakeHead);
-            if(directions.size() > 1) {
-                directions.poll();
-            }
+    }
+
+    private void repaintBoard() {
+        if(board != null) {
+            board.repaint();
         }
-        return old;
     }
 
     private void resetGame() {
-        this.score = 0;
-        this.fruitsEaten = 0;
-        this.isNewGame = false;
-        this.isGameOver = false;
-        Point head = new Point(BoardPanel.COL_COUNT / 2, BoardPanel.ROW_COUNT / 2);
-        snake.clear();
-        snake.add(head);
-        board.clearBoard();
-        board.setTile(head, TileType.SnakeHead);
-        directions.clear();
-        directions.add(Direction.North);
+        if(replay != null) {
+            replay.restart(engine);
+        } else {
+            long seed = seeds.nextLong();
+            engine.reset(seed);
+            recorder.start(engine, seed);
+        }
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().clearPendingInput();
+        }
+        logicTimer.setCyclesPerSecond(speedFor(0));
         logicTimer.reset();
-        spawnFruit();
+        events.publish(GameEventType.GameStarted, engine);
+    }
+
+    /**
+     * Encodes the game on the logic thread, where the engine is consistent,
+     * and leaves the file write to the checkpoint writer.
+     */
+    private CompletableFuture<Void> saveCheckpoint() {
+        if(checkpoint == null || engine.isNewGame() || engine.isGameOver()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        byte[] saved = Checkpoint.encode(engine, seeds.nextLong());
+        long encoded = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Checkpoint.write(checkpoint, saved);
+                if(GameMetrics.ENABLED) {
+                    GameMetrics.get().recordCheckpointSave(saved.length, encoded - start, System.nanoTime() - encoded);
+                }
+            } catch(IOException e) {
+                System.err.println("Failed to save checkpoint: " + e);
+            }
+        }, checkpointWriter);
+    }
+
+    private void loadCheckpoint() {
+        if(checkpoint == null) {
+            return;
+        }
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0L;
+        ByteBuffer saved;
+        try {
+            saved = Checkpoint.read(checkpoint);
+        } catch(IOException e) {
+            System.err.println("Failed to load checkpoint: " + e);
+            return;
+        }
+        long abandonedAt = engine.getTick();
+        try {
+            Checkpoint.decode(saved, engine);
+        } catch(IOException e) {
+            System.err.println("Failed to load checkpoint: " + e);
+            return;
+        }
+        // The abandoned game's replay ends where it was left.
+        if(recorder.isRecording()) {
+            recorder.finish(abandonedAt);
+            if(replays != null) {
+                replays.appendAsync(recorder);
+            }
+        }
+        engine.setPaused(true);
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().clearPendingInput();
+        }
+        logicTimer.setCyclesPerSecond(speedFor(engine.getFruitsEaten()));
+        logicTimer.reset();
+        logicTimer.setPaused(true);
+        events.publish(GameEventType.Restored, engine);
+        repaintBoard();
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().recordCheckpointLoad(System.nanoTime() - start);
+        }
+    }
+
+    private float speedFor(int fruitsEaten) {
+        return Math.min(Math.max(MAX_SPEED, BASE_SPEED), BASE_SPEED + SPEED_RAMP * fruitsEaten) * speedScale;
+    }
+
+    public SnakeEngine getEngine() {
+        return engine;
+    }
+
+    public long getInputLatency() {
+        return inputLatency;
     }
 
     public boolean isNewGame() {
-        return isNewGame;
+        return engine.isNewGame();
     }
 
     public boolean isGameOver() {
-        return isGameOver;
+        return engine.isGameOver();
     }
 
     public boolean isPaused() {
-        return isPaused;
-    }
-
-    private void spawnFruit() {
-        this.nextFruitScore = 100;
-        int index = random.nextInt(BoardPanel.COL_COUNT * BoardPanel.ROW_COUNT - snake.size());
-        int freeFound = -1;
-        for(int x = 0; x < BoardPanel.COL_COUNT; x++) {
-            for(int y = 0; y < BoardPanel.ROW_COUNT; y++) {
-                TileType type = board.getTile(x, y);
-                if(type == null || type == TileType.Fruit) {
-                    if(++freeFound == index) {
-                        board.setTile(x, y, TileType.Fruit);
-                        break;
-                    }
-                }
-            }
-        }
+        return engine.isPaused();
     }
 
     public int getScore() {
-        return score;
+        return engine.getScore();
     }
 
     public int getFruitsEaten() {
-        return fruitsEaten;
+        return engine.getFruitsEaten();
     }
 
     public int getNextFruitScore() {
-        return nextFruitScore;
+        return engine.getNextFruitScore();
     }
 
     public Direction getDirection() {
-        return directions.peek();
+        return engine.getDirection();
     }
 
     public static void main(String[] args) {
-        getConnection();
-        insertData();
-
-        LoginForm loginForm = new LoginForm();
-        while (!loginForm.isAuthenticated()) {
+        long launchedAt = System.nanoTime();
+        ReplayPlayer replay = null;
+        String replayPath = System.getProperty("snake.replay");
+        if(replayPath != null) {
             try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
+                replay = ReplayArchive.readGame(Path.of(replayPath), Integer.getInteger("snake.replayGame", 0));
+            } catch(IOException e) {
                 e.printStackTrace();
+                System.exit(1);
             }
         }
-
-        SnakeGame snake = new SnakeGame();
-        snake.startGame();
-    }
-
-    public static Connection getConnection() {
-        try {
-            String url = "jdbc:mysql://localhost:3306/snakegame";
-            String username = "root";
-            String password = "Fatima@7211";
-            Connection conn = DriverManager.getConnection(url, username, password);
-            System.out.println("Database Connected");
-            return conn;
-        } catch (Exception e) {
-            System.err.println("Connection failed: " + e);
+        ReplayArchive replays = replay == null && !REPLAY_ARCHIVE.isEmpty() ? new ReplayArchive(Path.of(REPLAY_ARCHIVE)) : null;
+        if(replays != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(replays::close, "Replay Writer Shutdown"));
         }
-        return null;
-    }
-    public static void insertData() {
-        try {
-            Statement statement = getConnection().createStatement();
-            int result = statement.executeUpdate("insert into login (id,username,password) values (1,'Fatima','7211')");
-            System.out.println(result);
-            if (result==1){
-                System.out.println("Data insertion");
-            } else {
-                System.out.println("some error");
+        if(GameMetrics.ENABLED) {
+            GameMetrics.get().start();
+        }
+        Leaderboard leaderboard = new Leaderboard();
+        ScoreStore store = ScoreStore.fromSystemProperties();
+        ScoreWriter scores = new ScoreWriter(store, leaderboard);
+        scores.start();
+        GameEventBus events = new GameEventBus();
+        Heatmap heatmap = null;
+        if(replay == null && !HEATMAP.isEmpty()) {
+            try {
+                heatmap = new Heatmap(Path.of(HEATMAP), BoardPanel.COL_COUNT, BoardPanel.ROW_COUNT);
+                events.addHandler("Heatmap", heatmap);
+            } catch(IOException e) {
+                System.err.println("Heatmap disabled: " + e);
             }
-        } catch (Exception e) {
-            System.out.println("error" + e);
         }
+        Heatmap counters = heatmap;
+        // Results and heatmap counts arrive through the bus, so drain it first.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            events.close();
+            if(counters != null) {
+                counters.close();
+            }
+            scores.close();
+        }, "Score Writer Shutdown"));
+
+        CompletableFuture<String> login;
+        if(replay != null) {
+            login = CompletableFuture.completedFuture("Replay");
+        } else {
+            login = new CompletableFuture<>();
+            EDT.execute(() -> new LoginForm(login, store));
+        }
+        ReplayPlayer replayed = replay;
+        CompletableFuture<SnakeGame> game = CompletableFuture
+                .supplyAsync(() -> {
+                    SnakeGame snake = new SnakeGame(scores, leaderboard, replays, replayed, events);
+                    snake.setHeatmap(counters);
+                    events.start();
+                    return snake;
+                }, EDT)
+                .thenApplyAsync(SnakeGame::prepareAssets);
+        login.thenCombine(game, (player, snake) -> {
+            snake.setPlayer(player);
+            return snake;
+        }).thenAcceptAsync(snake -> snake.launch(launchedAt), EDT).exceptionally(e -> {
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        });
     }
 }
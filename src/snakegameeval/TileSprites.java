@@ -0,0 +1,118 @@
+package snakegameeval;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RadialGradientPaint;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+public class TileSprites {
+    private final int tileSize;
+    private final GraphicsConfiguration config;
+    private final BufferedImage fruit;
+    private final BufferedImage body;
+    private final BufferedImage[] heads;
+
+    public TileSprites(int tileSize, GraphicsConfiguration config) {
+        this.tileSize = tileSize;
+        this.config = config;
+        this.fruit = render(TileType.Fruit, null);
+        this.body = render(TileType.SnakeBody, null);
+        Direction[] directions = Direction.values();
+        this.heads = new BufferedImage[directions.length];
+        for (Direction direction : directions) {
+            heads[direction.ordinal()] = render(TileType.SnakeHead, direction);
+        }
+    }
+
+    public boolean matches(int tileSize, GraphicsConfiguration config) {
+        return this.tileSize == tileSize && this.config == config;
+    }
+
+    public BufferedImage get(TileType type, Direction direction) {
+        switch (type) {
+            case Fruit:
+                return fruit;
+            case SnakeBody:
+                return body;
+            default:
+                return heads[direction == null ? 0 : direction.ordinal()];
+        }
+    }
+
+    private BufferedImage render(TileType type, Direction direction) {
+        BufferedImage image = config != null
+                ? config.createCompatibleImage(tileSize, tileSize, Transparency.TRANSLUCENT)
+                : new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2D = image.createGraphics();
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        switch (type) {
+            case Fruit:
+                int inset = tileSize >= 8 ? 2 : 0;
+                int fruitX = inset;
+                int fruitY = inset;
+                int fruitSize = tileSize - 2 * inset;
+
+                float centerX = fruitX + fruitSize / 2.0f;
+                float centerY = fruitY + fruitSize / 2.0f;
+                float radius = fruitSize / 2.0f;
+
+                RadialGradientPaint fruitGradient = new RadialGradientPaint(
+                        new Point2D.Float(centerX, centerY), radius,
+                        new float[]{0.0f, 1.0f},
+                        new Color[]{Color.red.brighter(), Color.red.darker()}
+                );
+                g2D.setPaint(fruitGradient);
+                g2D.fillOval(fruitX, fruitY, fruitSize, fruitSize);
+                RadialGradientPaint highlightGradient = new RadialGradientPaint(
+                        new Point2D.Float(centerX, centerY), radius,
+                        new float[]{0.0f, 0.6f},
+                        new Color[]{new Color(255, 255, 255, 128), new Color(255, 255, 255, 0)}
+                );
+                g2D.setPaint(highlightGradient);
+                g2D.fillOval(fruitX, fruitY, fruitSize, fruitSize);
+                break;
+
+            case SnakeBody:
+                GradientPaint bodyGradient = new GradientPaint(0, 0, Color.pink, tileSize, tileSize, Color.black, true);
+                g2D.setPaint(bodyGradient);
+                g2D.fillRect(0, 0, tileSize, tileSize);
+                break;
+
+            case SnakeHead:
+                GradientPaint headGradient = new GradientPaint(0, 0, Color.darkGray.darker(), tileSize, tileSize, Color.darkGray.brighter(), true);
+                g2D.setPaint(headGradient);
+                g2D.fillRect(0, 0, tileSize, tileSize);
+                g2D.setColor(Color.BLACK);
+                int eyeSize = tileSize / 5;
+                int eyeOffsetX = tileSize / 5;
+                int eyeOffsetY = tileSize / 4;
+
+                switch (direction) {
+                    case North:
+                        g2D.fillOval(eyeOffsetX, eyeOffsetY, eyeSize, eyeSize);
+                        g2D.fillOval(tileSize - eyeOffsetX - eyeSize, eyeOffsetY, eyeSize, eyeSize);
+                        break;
+                    case South:
+                        g2D.fillOval(eyeOffsetX, tileSize - eyeOffsetY - eyeSize, eyeSize, eyeSize);
+                        g2D.fillOval(tileSize - eyeOffsetX - eyeSize, tileSize - eyeOffsetY - eyeSize, eyeSize, eyeSize);
+                        break;
+                    case West:
+                        g2D.fillOval(eyeOffsetY, eyeOffsetX, eyeSize, eyeSize);
+                        g2D.fillOval(eyeOffsetY, tileSize - eyeOffsetX - eyeSize, eyeSize, eyeSize);
+                        break;
+                    case East:
+                        g2D.fillOval(tileSize - eyeOffsetY - eyeSize, eyeOffsetX, eyeSize, eyeSize);
+                        g2D.fillOval(tileSize - eyeOffsetY - eyeSize, tileSize - eyeOffsetX - eyeSize, eyeSize, eyeSize);
+                        break;
+                }
+                break;
+        }
+        g2D.dispose();
+        return image;
+    }
+}
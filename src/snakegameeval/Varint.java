@@ -0,0 +1,42 @@
+package snakegameeval;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned LEB128 varints: 7 bits per byte, high bit set on every byte but the last.
+ */
+public final class Varint {
+    public static final int MAX_SIZE = 10;
+
+    private Varint() {
+    }
+
+    public static int write(byte[] out, int offset, long value) {
+        while((value & ~0x7FL) != 0) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+
+    public static void write(ByteBuffer out, long value) {
+        while((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static long read(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+        return value;
+    }
+}
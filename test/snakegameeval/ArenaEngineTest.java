@@ -0,0 +1,182 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+class ArenaEngineTest {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Test
+    void parallelTickMatchesSequentialTick() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int snakes = 48;
+            ArenaEngine parallel = new ArenaEngine(96, 96, snakes, 32, new SplittableRandom(5), pool);
+            ArenaEngine sequential = new ArenaEngine(96, 96, snakes, 32, new SplittableRandom(5), null);
+            for(int i = 0; i < snakes; i++) {
+                parallel.addSnake();
+                sequential.addSnake();
+            }
+            Random steering = new Random(5);
+            int deaths = 0;
+            for(int tick = 0; tick < 400; tick++) {
+                for(int id = 0; id < snakes; id++) {
+                    if(!sequential.isAlive(id)) {
+                        deaths++;
+                        parallel.respawn(id);
+                        sequential.respawn(id);
+                    } else if(steering.nextInt(4) == 0) {
+                        Direction direction = DIRECTIONS[steering.nextInt(4)];
+                        parallel.steer(id, direction);
+                        sequential.steer(id, direction);
+                    }
+                }
+                parallel.step();
+                sequential.step();
+                assertSameArena(sequential, parallel);
+                parallel.clearChanges();
+                sequential.clearChanges();
+            }
+            assertTrue(deaths > snakes, "too few collisions to compare: " + deaths);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void headToHeadKillsBoth() {
+        // 9x9: (2,4) spawns heading East and (6,4) heading West, meeting at (4,4).
+        ArenaEngine arena = new ArenaEngine(9, 9, 2, 0, cells(4 * 9 + 2, 4 * 9 + 6), null);
+        int left = arena.addSnake();
+        int right = arena.addSnake();
+        arena.step();
+        assertTrue(arena.isAlive(left) && arena.isAlive(right));
+        arena.step();
+        assertFalse(arena.isAlive(left));
+        assertFalse(arena.isAlive(right));
+        for(int cell = 0; cell < 81; cell++) {
+            assertEquals(ArenaEngine.EMPTY, arena.getCell(cell), "cell " + cell);
+        }
+    }
+
+    @Test
+    void headIntoBodyKillsOnlyTheMover() {
+        // (1,4) heads East and crosses (4,4) a tick before (4,0), heading South, reaches it.
+        ArenaEngine arena = new ArenaEngine(9, 9, 2, 0, cells(4 * 9 + 1, 4), null);
+        int crossing = arena.addSnake();
+        int falling = arena.addSnake();
+        for(int i = 0; i < 4; i++) {
+            arena.step();
+        }
+        assertTrue(arena.isAlive(crossing));
+        assertFalse(arena.isAlive(falling));
+        assertEquals(crossing + 1, arena.getCell(4, 4));
+    }
+
+    @Test
+    void snakeCanFollowItsOwnTail() {
+        // Grows to six heading North from (4,7), then circles a 2x3 loop with its head always entering its tail.
+        ArenaEngine arena = new ArenaEngine(9, 9, 1, 0, cells(7 * 9 + 4), null);
+        int id = arena.addSnake();
+        for(int i = 0; i < 5; i++) {
+            arena.step();
+        }
+        assertEquals(6, arena.getLength(id));
+        Direction[] loop = {Direction.East, Direction.South, Direction.South, Direction.West, Direction.North, Direction.North};
+        for(int i = 0; i < 30; i++) {
+            arena.steer(id, loop[i % loop.length]);
+            arena.step();
+            assertTrue(arena.isAlive(id), "died on loop step " + i);
+        }
+        assertEquals(6, arena.getLength(id));
+    }
+
+    @Test
+    void snakeCanFollowAnotherSnakesTailUnlessItGrows() {
+        // 9x15: both spawn heading North in column 4.
+        ArenaEngine arena = new ArenaEngine(9, 15, 3, 0, cells(13 * 9 + 4, 14 * 9 + 4, 10 * 9 + 4), null);
+        int leader = arena.addSnake();
+        for(int i = 0; i < 5; i++) {
+            arena.step();
+        }
+        // The leader has stopped growing, so its tail at (4,13) moves away as the follower enters it.
+        int follower = arena.addSnake();
+        for(int i = 0; i < 3; i++) {
+            arena.step();
+            assertTrue(arena.isAlive(follower), "follower died on step " + i);
+        }
+        assertTrue(arena.isAlive(leader));
+
+        // A fresh snake at (4,10) is still growing, so its tail stays put and the follower dies on it.
+        arena.kill(leader);
+        int grower = arena.addSnake();
+        arena.step();
+        assertTrue(arena.isAlive(grower));
+        assertFalse(arena.isAlive(follower));
+    }
+
+    @Test
+    void crowdedBoardPicksTheKthEmptyCell() {
+        // 3x3 with snakes on 0, 2, 4 and 6 leaves 1, 3, 5, 7 and 8 empty. Every probe then
+        // lands on cell 0, so the spawn falls back to choosing the third empty cell: 5.
+        int[] script = new int[4 + 64 + 1];
+        script[1] = 2;
+        script[2] = 4;
+        script[3] = 6;
+        script[script.length - 1] = 2;
+        ArenaEngine arena = new ArenaEngine(3, 3, 5, 0, cells(script), null);
+        for(int i = 0; i < 4; i++) {
+            arena.addSnake();
+        }
+        int id = arena.addSnake();
+        assertEquals(5, arena.getHeadCell(id));
+    }
+
+    private static void assertSameArena(ArenaEngine expected, ArenaEngine actual) {
+        assertArrayEquals(grid(expected), grid(actual), "owner grid at tick " + expected.getTick());
+        assertArrayEquals(changes(expected), changes(actual), "changes at tick " + expected.getTick());
+        for(int id = 0; id < expected.getSnakeCount(); id++) {
+            assertEquals(expected.getScore(id), actual.getScore(id), "score of snake " + id);
+        }
+    }
+
+    private static int[] grid(ArenaEngine arena) {
+        int[] grid = new int[arena.getColumnCount() * arena.getRowCount()];
+        for(int cell = 0; cell < grid.length; cell++) {
+            grid[cell] = arena.getCell(cell);
+        }
+        return grid;
+    }
+
+    private static int[] changes(ArenaEngine arena) {
+        int[] changes = new int[arena.getChangedCount()];
+        for(int i = 0; i < changes.length; i++) {
+            changes[i] = arena.getChangedCell(i);
+        }
+        return changes;
+    }
+
+    // Hands out the given cells, in order, as the spawn positions.
+    private static RandomGenerator cells(int... cells) {
+        int[] next = {0};
+        return new RandomGenerator() {
+            @Override
+            public long nextLong() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int nextInt(int bound) {
+                return cells[next[0]++];
+            }
+        };
+    }
+}
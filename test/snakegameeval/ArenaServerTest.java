@@ -0,0 +1,129 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ArenaServerTest {
+    private static final int ACTIVE_CLIENTS = 16;
+
+    @Test
+    void stalledClientIsResyncedOnFrameBoundaries() throws Exception {
+        ArenaServer server = new ArenaServer(0, 64, 64, ACTIVE_CLIENTS + 1, 250.0f);
+        server.setMaxPendingBytes(2048);
+        server.setSendBufferSize(4096);
+        Thread thread = new Thread(server, "Arena Server");
+        thread.start();
+        List<ArenaClient> clients = new ArrayList<>();
+        try {
+            for(int i = 0; i < ACTIVE_CLIENTS; i++) {
+                clients.add(new ArenaClient("127.0.0.1", server.getPort()));
+            }
+            ArenaClient stalled = new ArenaClient("127.0.0.1", server.getPort(), 1024);
+            Random random = new Random(1);
+            long deadline = System.currentTimeMillis() + 20000L;
+            while(server.getResyncs() < 2 && System.currentTimeMillis() < deadline) {
+                drive(clients, random);
+            }
+            assertTrue(server.getResyncs() >= 2, "stalled client was never resynced");
+            clients.add(stalled);
+            int tick = stalled.getTick();
+            while(stalled.getTick() < tick + 300 && System.currentTimeMillis() < deadline) {
+                drive(clients, random);
+            }
+            assertTrue(stalled.getTick() >= tick + 300, "stalled client did not catch up");
+            assertTrue(stalled.getKeyframes() >= 3);
+            for(ArenaClient client : clients) {
+                assertEquals(0, client.getDesyncs(), "desyncs for snake " + client.getSnakeId());
+            }
+        } finally {
+            for(ArenaClient client : clients) {
+                client.close();
+            }
+            server.close();
+            thread.join();
+        }
+    }
+
+    @Test
+    void lateJoinerStartsFromAKeyframeThenFollowsDeltas() throws Exception {
+        ArenaServer server = new ArenaServer(0, 48, 48, 5, 250.0f);
+        Thread thread = new Thread(server, "Arena Server");
+        thread.start();
+        List<ArenaClient> clients = new ArrayList<>();
+        try {
+            for(int i = 0; i < 4; i++) {
+                clients.add(new ArenaClient("127.0.0.1", server.getPort()));
+            }
+            ArenaClient early = clients.get(0);
+            Random random = new Random(2);
+            long deadline = System.currentTimeMillis() + 20000L;
+            while(early.getTick() < 150 && System.currentTimeMillis() < deadline) {
+                drive(clients, random);
+            }
+            ArenaClient late = new ArenaClient("127.0.0.1", server.getPort());
+            clients.add(late);
+            assertFalse(late.isSynced());
+            assertEquals(ArenaProtocol.KEYFRAME, late.receive());
+            assertTrue(late.isSynced());
+            int joined = late.getTick();
+            assertTrue(joined >= 150, "joined at tick " + joined);
+
+            // Run past the next periodic keyframe, which the late client checks against its own grid.
+            int target = (joined / 100 + 1) * 100 + 1;
+            while(late.getTick() < target) {
+                int tick = late.getTick();
+                int type = late.receive();
+                if(type == ArenaProtocol.DELTA) {
+                    assertEquals(tick + 1, late.getTick(), "deltas must follow the keyframe tick by tick");
+                } else {
+                    assertEquals(ArenaProtocol.KEYFRAME, type);
+                    assertEquals(tick, late.getTick(), "periodic keyframe for another tick");
+                }
+            }
+            assertEquals(target, late.getTick());
+            assertEquals(2, late.getKeyframes());
+            assertEquals(target - joined, late.getDeltas());
+            assertEquals(0, late.getDesyncs());
+
+            while(early.getTick() < target) {
+                early.receive();
+            }
+            assertEquals(target, early.getTick());
+            assertArrayEquals(grid(early), grid(late));
+        } finally {
+            for(ArenaClient client : clients) {
+                client.close();
+            }
+            server.close();
+            thread.join();
+        }
+    }
+
+    private static int[] grid(ArenaClient client) {
+        int[] grid = new int[client.getColumnCount() * client.getRowCount()];
+        for(int y = 0; y < client.getRowCount(); y++) {
+            for(int x = 0; x < client.getColumnCount(); x++) {
+                grid[y * client.getColumnCount() + x] = client.getCell(x, y);
+            }
+        }
+        return grid;
+    }
+
+    private static void drive(List<ArenaClient> clients, Random random) throws Exception {
+        for(ArenaClient client : clients) {
+            client.receive();
+            if(client.isSynced() && !client.isAlive(client.getSnakeId())) {
+                client.respawn();
+            } else if(random.nextInt(5) == 0) {
+                client.steer(Direction.values()[random.nextInt(4)]);
+            }
+        }
+    }
+}
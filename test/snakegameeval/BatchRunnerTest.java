@@ -0,0 +1,34 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BatchRunnerTest {
+    private static final int GAMES = 200;
+
+    @Test
+    void sameSeedGivesTheSameStatsForAnyParallelism() {
+        BatchRunner runner = new BatchRunner(15, 15, RandomController::new).setMaxTicks(5000);
+        BatchStats expected = runner.run(GAMES, 42L, 1);
+        assertEquals(GAMES, expected.getGames());
+        for(int parallelism : new int[] {2, 3, 8}) {
+            assertSameStats(expected, runner.run(GAMES, 42L, parallelism));
+        }
+        assertNotEquals(expected.getTicks(), runner.run(GAMES, 43L, 4).getTicks());
+    }
+
+    private static void assertSameStats(BatchStats expected, BatchStats actual) {
+        assertEquals(expected.getGames(), actual.getGames());
+        assertEquals(expected.getTimeouts(), actual.getTimeouts());
+        assertEquals(expected.getTicks(), actual.getTicks());
+        assertEquals(expected.getMeanScore(), actual.getMeanScore());
+        assertEquals(expected.getScoreStdDev(), actual.getScoreStdDev());
+        assertEquals(expected.getMinScore(), actual.getMinScore());
+        assertEquals(expected.getMaxScore(), actual.getMaxScore());
+        assertEquals(expected.getMeanLength(), actual.getMeanLength());
+        assertEquals(expected.getMaxLength(), actual.getMaxLength());
+        assertEquals(expected.getMeanFruitsEaten(), actual.getMeanFruitsEaten());
+    }
+}
@@ -0,0 +1,114 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+    private static final long SEED = 11L;
+
+    @Test
+    void loadRestoresTheSavedState(@TempDir Path dir) throws IOException {
+        SnakeEngine saved = playing();
+        saved.addDirection(saved.getDirection().ordinal() % 2 == 0 ? Direction.East : Direction.North);
+        saved.setPaused(true);
+        byte[] checkpoint = Checkpoint.encode(saved, SEED);
+        Path path = dir.resolve("checkpoint.snkc");
+        Checkpoint.write(path, checkpoint);
+
+        SnakeEngine loaded = new SnakeEngine(27, 27, null);
+        Checkpoint.load(path, loaded);
+        assertSameState(saved, loaded);
+        assertArrayEquals(checkpoint, Checkpoint.encode(loaded, SEED));
+
+        // Both engines draw fruit from the checkpoint's seed from here on.
+        saved.setRandom(new Random(SEED));
+        saved.setPaused(false);
+        loaded.setPaused(false);
+        RandomController controller = new RandomController(new SplittableRandom(SEED));
+        for(int i = 0; i < 500 && !saved.isGameOver(); i++) {
+            Direction direction = controller.nextDirection(saved);
+            if(direction != null) {
+                saved.addDirection(direction);
+                loaded.addDirection(direction);
+            }
+            saved.step();
+            loaded.step();
+        }
+        assertSameState(saved, loaded);
+    }
+
+    @Test
+    void corruptCheckpointLeavesTheEngineAlone() {
+        byte[] checkpoint = Checkpoint.encode(playing(), SEED);
+        checkpoint[checkpoint.length / 2] ^= 1;
+        SnakeEngine engine = new SnakeEngine(27, 27, null);
+        engine.reset(SEED);
+        assertThrows(IOException.class, () -> Checkpoint.decode(ByteBuffer.wrap(checkpoint), engine));
+        assertEquals(0, engine.getTick());
+        assertEquals(1, engine.getLength());
+    }
+
+    @Test
+    void rejectedRestoreLeavesTheEngineAlone() {
+        SnakeEngine engine = playing();
+        byte[] before = Checkpoint.encode(engine, SEED);
+        int[] overlapping = {engine.getBodyCell(0), engine.getBodyCell(1), engine.getBodyCell(0)};
+        assertThrows(IllegalArgumentException.class, () -> engine.restore(overlapping, 3, -1, new int[] {0}, 1, 1, 0, 0, 100, false));
+        int[] path = {engine.getBodyCell(0), engine.getBodyCell(1)};
+        assertThrows(IllegalArgumentException.class, () -> engine.restore(path, 2, path[1], new int[] {0}, 1, 1, 0, 0, 100, false));
+        assertArrayEquals(before, Checkpoint.encode(engine, SEED));
+        SnakeEngine copy = new SnakeEngine(27, 27, null);
+        assertDoesNotThrow(() -> Checkpoint.decode(ByteBuffer.wrap(before), copy));
+        assertSameState(copy, engine);
+    }
+
+    private static SnakeEngine playing() {
+        SnakeEngine engine = new SnakeEngine(27, 27, null);
+        engine.reset(SEED);
+        Autopilot autopilot = new Autopilot();
+        autopilot.startGame(engine);
+        while(engine.getFruitsEaten() < 20 && !engine.isGameOver()) {
+            Direction direction = autopilot.nextDirection(engine);
+            if(direction != null) {
+                engine.addDirection(direction);
+            }
+            engine.step();
+        }
+        assertTrue(!engine.isGameOver() && engine.getLength() > 1, "no game in progress to save");
+        return engine;
+    }
+
+    private static void assertSameState(SnakeEngine expected, SnakeEngine actual) {
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getFruitsEaten(), actual.getFruitsEaten());
+        assertEquals(expected.getNextFruitScore(), actual.getNextFruitScore());
+        assertEquals(expected.getFruitCell(), actual.getFruitCell());
+        assertEquals(expected.isPaused(), actual.isPaused());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        assertEquals(expected.getLength(), actual.getLength());
+        for(int i = 0; i < expected.getLength(); i++) {
+            assertEquals(expected.getBodyCell(i), actual.getBodyCell(i), "body cell " + i);
+        }
+        assertEquals(expected.getQueuedDirectionCount(), actual.getQueuedDirectionCount());
+        for(int i = 0; i < expected.getQueuedDirectionCount(); i++) {
+            assertEquals(expected.getQueuedDirection(i), actual.getQueuedDirection(i), "queued direction " + i);
+        }
+        for(int y = 0; y < expected.getRowCount(); y++) {
+            for(int x = 0; x < expected.getColumnCount(); x++) {
+                assertEquals(expected.getTile(x, y), actual.getTile(x, y), "tile " + x + "," + y);
+            }
+        }
+    }
+}
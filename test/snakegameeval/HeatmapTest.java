@@ -0,0 +1,61 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HeatmapTest {
+    @Test
+    void countsEachVisitFruitAndDeathOnce(@TempDir Path dir) throws Exception {
+        SnakeEngine engine = new SnakeEngine(9, 9, new Random(3));
+        engine.reset(3);
+        GameEvent event = new GameEvent();
+        long visits = 0;
+        try(Heatmap heatmap = new Heatmap(dir.resolve("heatmap.snkh"), 9, 9)) {
+            heatmap.onEvent(set(event, GameEventType.GameStarted, engine), 0, true);
+            Autopilot autopilot = new Autopilot();
+            autopilot.startGame(engine);
+            // Runs until the autopilot eats a few fruit, then drives the snake into the wall.
+            while(!engine.isGameOver()) {
+                Direction direction = engine.getFruitsEaten() < 3 ? autopilot.nextDirection(engine) : Direction.North;
+                if(direction != null) {
+                    engine.addDirection(direction);
+                }
+                int head = engine.getBodyCell(0);
+                TileType collision = engine.step();
+                heatmap.onEvent(set(event, GameEventType.Tick, engine), 0, true);
+                if(collision == TileType.Fruit) {
+                    heatmap.onEvent(set(event, GameEventType.FruitEaten, engine), 0, true);
+                } else if(collision == TileType.SnakeBody) {
+                    assertEquals(head, engine.getBodyCell(0));
+                    heatmap.onEvent(set(event, GameEventType.Death, engine), 0, true);
+                } else {
+                    visits++;
+                }
+            }
+            assertTrue(engine.getFruitsEaten() >= 3);
+            assertEquals(visits + engine.getFruitsEaten(), sum(heatmap, Heatmap.VISITS));
+            assertEquals(engine.getFruitsEaten(), sum(heatmap, Heatmap.FRUIT));
+            assertEquals(1, sum(heatmap, Heatmap.DEATHS));
+            assertEquals(1, heatmap.get(Heatmap.DEATHS, engine.getBodyCell(0)));
+            assertEquals(1, heatmap.getGames());
+        }
+    }
+
+    private static GameEvent set(GameEvent event, GameEventType type, SnakeEngine engine) {
+        event.set(type, engine, engine.getDirection());
+        return event;
+    }
+
+    private static long sum(Heatmap heatmap, int layer) {
+        long sum = 0;
+        for(int cell = 0; cell < 81; cell++) {
+            sum += heatmap.get(layer, cell);
+        }
+        return sum;
+    }
+}
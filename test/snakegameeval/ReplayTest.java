@@ -0,0 +1,113 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayTest {
+    private static final long SEED = 7L;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Test
+    void playbackReachesTheRecordedTickAndScore() {
+        SnakeEngine recorded = new SnakeEngine(27, 27, new Random(SEED));
+        byte[] record = record(recorded);
+        assertTrue(recorded.getScore() > 0, "recorded game never scored");
+
+        ReplayPlayer replay = new ReplayPlayer(ByteBuffer.wrap(record));
+        assertEquals(SEED, replay.getSeed());
+        SnakeEngine played = replay.createEngine();
+        replay.restart(played);
+        while(replay.step(played)) {
+        }
+        assertEquals(recorded.getTick(), played.getTick());
+        assertEquals(recorded.getScore(), played.getScore());
+        assertEquals(recorded.getFruitsEaten(), played.getFruitsEaten());
+        assertEquals(recorded.isGameOver(), played.isGameOver());
+    }
+
+    @Test
+    void archivedGamesPlayBackInOrder(@TempDir Path dir) throws Exception {
+        Path path = dir.resolve("replays.snka");
+        SnakeEngine first = new SnakeEngine(27, 27, new Random(SEED));
+        SnakeEngine second = new SnakeEngine(15, 9, new Random(SEED));
+        try(ReplayArchive archive = new ReplayArchive(path)) {
+            archive.append(record(first));
+            archive.append(record(second));
+        }
+        ReplayPlayer replay = ReplayArchive.readGame(path, 1);
+        SnakeEngine played = replay.createEngine();
+        replay.restart(played);
+        while(replay.step(played)) {
+        }
+        assertEquals(15, played.getColumnCount());
+        assertEquals(second.getTick(), played.getTick());
+        assertEquals(second.getScore(), played.getScore());
+    }
+
+    private static byte[] record(SnakeEngine engine) {
+        ReplayRecorder recorder = new ReplayRecorder();
+        engine.reset(SEED);
+        recorder.start(engine, SEED);
+        while(!engine.isGameOver() && engine.getTick() < 20000) {
+            Direction direction = chase(engine);
+            if(direction != null && engine.addDirection(direction)) {
+                recorder.recordDirection(engine.getTick(), direction);
+            }
+            engine.step();
+        }
+        recorder.finish(engine.getTick());
+        return recorder.toByteArray();
+    }
+
+    /**
+     * Heads for the fruit, judged from the cell the head enters next since a
+     * queued turn takes effect one tick late. Never reverses.
+     */
+    private static Direction chase(SnakeEngine engine) {
+        Direction current = engine.getDirection();
+        int x = engine.getHeadX() + dx(current);
+        int y = engine.getHeadY() + dy(current);
+        int fruitX = x;
+        int fruitY = y;
+        for(int i = 0; i < engine.getColumnCount() * engine.getRowCount(); i++) {
+            if(engine.getTile(i % engine.getColumnCount(), i / engine.getColumnCount()) == TileType.Fruit) {
+                fruitX = i % engine.getColumnCount();
+                fruitY = i / engine.getColumnCount();
+            }
+        }
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for(Direction direction : DIRECTIONS) {
+            int nextX = x + dx(direction);
+            int nextY = y + dy(direction);
+            int distance = Math.abs(fruitX - nextX) + Math.abs(fruitY - nextY);
+            if((direction.ordinal() ^ current.ordinal()) != 2 && isSafe(engine, nextX, nextY) && distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        return best == current ? null : best;
+    }
+
+    private static int dx(Direction direction) {
+        return direction == Direction.East ? 1 : direction == Direction.West ? -1 : 0;
+    }
+
+    private static int dy(Direction direction) {
+        return direction == Direction.South ? 1 : direction == Direction.North ? -1 : 0;
+    }
+
+    private static boolean isSafe(SnakeEngine engine, int x, int y) {
+        if(x < 0 || x >= engine.getColumnCount() || y < 0 || y >= engine.getRowCount()) {
+            return false;
+        }
+        TileType tile = engine.getTile(x, y);
+        return tile != TileType.SnakeBody && tile != TileType.SnakeHead;
+    }
+}
@@ -0,0 +1,53 @@
+package snakegameeval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ScoreStoreTest {
+    @Test
+    void failedBatchRollsBackAndReleasesTheConnection() throws SQLException {
+        // A single connection, so a leak makes the next borrow time out.
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:scores;DB_CLOSE_DELAY=-1", "", "", 1);
+        ScoreStore store = new ScoreStore(pool);
+        try {
+            store.createSchema();
+            GameResult good = new GameResult("player", 120, 3, 8, 1L);
+            GameResult bad = new GameResult(null, 0, 0, 5, 2L);
+            assertThrows(SQLException.class, () -> store.saveResults(List.of(good, bad)));
+            assertEquals(0, store.loadResults().size());
+            store.saveResults(List.of(good));
+            assertEquals(1, store.loadResults().size());
+            Connection conn = pool.borrow();
+            try {
+                assertTrue(conn.getAutoCommit());
+            } finally {
+                pool.release(conn);
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void usersRegisterOnceAndAuthenticateWithTheirPassword() throws SQLException {
+        ScoreStore store = new ScoreStore(new ConnectionPool("jdbc:h2:mem:users;DB_CLOSE_DELAY=-1", "", "", 1));
+        try {
+            store.createSchema();
+            assertFalse(store.authenticate("player", "secret"));
+            assertTrue(store.addUser("player", "secret"));
+            assertFalse(store.addUser("player", "other"));
+            assertTrue(store.authenticate("player", "secret"));
+            assertFalse(store.authenticate("player", "other"));
+            assertFalse(store.authenticate("player' OR '1'='1", "secret' OR '1'='1"));
+        } finally {
+            store.close();
+        }
+    }
+}